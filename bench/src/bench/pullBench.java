@@ -0,0 +1,272 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tools.pityState;
+import tools.pityTable;
+import tools.pullBatch;
+import tools.pullDispatcher;
+import tools.pullEngine;
+import tools.pullHistory;
+import tools.pullPopulation;
+import tools.pullSession;
+import tools.pullStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * JMH micro-benchmarks for the simulation hot paths.
+ *
+ * Scores are time per operation; an operation is one pull (or one lookup/append) unless
+ * the name says otherwise, e.g. {@code dispatcherPull10} is one pull(10) call.
+ *
+ * Build with {@code mvn -B package} and run:
+ *   java -jar bench/target/benchmarks.jar [regex] [-prof gc]
+ *
+ * {@code -prof gc} reports bytes allocated per operation over all threads, including the
+ * ForkJoin workers of the batch and population cases, and the GC activity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class pullBench {
+
+    // Pulls per invocation of the per-pull loop cases
+    private static final int PULLS = 1000;
+
+    // ---- Rate lookup ----
+
+    @State(Scope.Thread)
+    public static class counterState {
+        int counter5;
+
+        int next() {
+            counter5 = (counter5 + 1) % pityTable.COUNTER_5_SIZE;
+            return counter5;
+        }
+    }
+
+    @Benchmark
+    public double get5RateFormula(counterState s) {
+        return pullEngine.get5Rate(s.next());
+    }
+
+    @Benchmark
+    public double get5RateTable(counterState s) {
+        return pityTable.DEFAULT.get5Rate(s.next());
+    }
+
+    // ---- Engine with different RNGs ----
+
+    @State(Scope.Thread)
+    public static class engineState {
+        @Param({"Random", "SplittableRandom", "ThreadLocalRandom", "L64X128MixRandom", "Xoroshiro128PlusPlus"})
+        String rng;
+
+        pullEngine engine;
+
+        @Setup
+        public void setup() {
+            RandomGenerator random;
+            switch (rng) {
+                case "Random":
+                    random = new Random(42);
+                    break;
+                case "SplittableRandom":
+                    random = new SplittableRandom(42);
+                    break;
+                case "ThreadLocalRandom":
+                    // Setup runs on the benchmark thread, so this is that thread's generator
+                    random = ThreadLocalRandom.current();
+                    break;
+                default:
+                    random = RandomGenerator.of(rng);
+                    break;
+            }
+            engine = new pullEngine(random);
+        }
+    }
+
+    @Benchmark
+    public int enginePullOne(engineState s) {
+        return s.engine.pullOne();
+    }
+
+    @State(Scope.Thread)
+    public static class turboState {
+        final pullEngine engine = new pullEngine(new SplittableRandom(42));
+        final pullStats stats = new pullStats();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PULLS)
+    public long enginePullTurbo(turboState s) {
+        s.engine.pullTurbo(PULLS, s.stats);
+        return s.stats.getTotal();
+    }
+
+    // ---- Immutable state / lock-free session ----
+
+    @State(Scope.Thread)
+    public static class pureState {
+        pityState state = pityState.initial(42);
+        final pullStats stats = new pullStats();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PULLS)
+    public pityState statePullPure(pureState s) {
+        s.state = s.state.pull(PULLS, pityTable.DEFAULT, s.stats);
+        return s.state;
+    }
+
+    @State(Scope.Thread)
+    public static class sessionState {
+        final pullSession session = new pullSession(42);
+        final pullStats stats = new pullStats();
+    }
+
+    /** One pull(10) call. */
+    @Benchmark
+    public pityState sessionPull10(sessionState s) {
+        return s.session.pull(10, s.stats);
+    }
+
+    // ---- Simulator hot path: engine + history + stats behind one dispatcher ----
+
+    @State(Scope.Thread)
+    public static class dispatcherState {
+        final pullEngine engine = new pullEngine(new SplittableRandom(42));
+        final pullHistory history = new pullHistory();
+        final pullStats stats = new pullStats();
+        final pullDispatcher events = new pullDispatcher();
+
+        @Setup
+        public void setup() {
+            events.add(history);
+            events.add(stats);
+        }
+
+        /**
+         * Keeps the history bounded so long runs measure pulling, not growth.
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            history.clear();
+            stats.reset();
+        }
+    }
+
+    /** One pull(1) call. */
+    @Benchmark
+    public long dispatcherPull1(dispatcherState s) {
+        s.engine.pull(1, s.events);
+        return s.history.size();
+    }
+
+    /** One pull(10) call. */
+    @Benchmark
+    public long dispatcherPull10(dispatcherState s) {
+        s.engine.pull(10, s.events);
+        return s.history.size();
+    }
+
+    // ---- History storage variants ----
+
+    @Benchmark
+    @OperationsPerInvocation(PULLS)
+    public long historyAppendPacked() {
+        pullHistory history = new pullHistory();
+        for (int i = 0; i < PULLS; i++) {
+            history.add(i & 3);
+        }
+        return history.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PULLS)
+    public List<String> historyAppendStringList() {
+        List<String> history = new ArrayList<>();
+        for (int i = 0; i < PULLS; i++) {
+            history.add(pullEngine.label(i & 3));
+        }
+        return history;
+    }
+
+    // ---- Stats ----
+
+    @State(Scope.Thread)
+    public static class statsState {
+        final pullEngine engine = new pullEngine(new SplittableRandom(7));
+        final pullStats stats = new pullStats();
+    }
+
+    /** One pull plus recording it. */
+    @Benchmark
+    public void statsRecord(statsState s, Blackhole bh) {
+        s.stats.record(s.engine.pullOne());
+        bh.consume(s.stats);
+    }
+
+    // ---- Million-pull batches (parallel) ----
+
+    /** One batch of 10,000 trials x 100 pulls. */
+    @Benchmark
+    public long batch1MPulls() {
+        return pullBatch.simulateMany(10_000, 100).getTotalPulls();
+    }
+
+    /** One batch of 10,000 trials x 100 pulls. */
+    @Benchmark
+    public long batch1MPullsTurbo(counterState s) {
+        return pullBatch.simulateManyTurbo(10_000, 100, s.next()).getTotalPulls();
+    }
+
+    // ---- Population (1M players, lane arrays) ----
+
+    @State(Scope.Benchmark)
+    public static class populationState {
+        pullPopulation population;
+
+        @Setup
+        public void setup() {
+            population = new pullPopulation(1_000_000, 42);
+        }
+    }
+
+    /** One step of all 1M players, Vector API path (used by default on JDK 21+). */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Dwuwa.population.vector=true"})
+    public void population1MStep(populationState s, Blackhole bh) {
+        s.population.step(1);
+        bh.consume(s.population.getCount(pullEngine.RESULT_UP5));
+    }
+
+    /** One step of all 1M players, scalar lane loop. */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dwuwa.population.vector=false")
+    public void population1MStepScalar(populationState s, Blackhole bh) {
+        s.population.step(1);
+        bh.consume(s.population.getCount(pullEngine.RESULT_UP5));
+    }
+}
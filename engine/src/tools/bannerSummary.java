@@ -0,0 +1,140 @@
+package tools;
+
+/**
+ * Aggregated statistics for one banner type, over every account in an imported log.
+ * Filled by {@link conveneAnalyzer}; all fields are counters, so memory does not grow
+ * with the number of records.
+ */
+public class bannerSummary {
+
+    /** Astrite cost of a single convene. */
+    public static final int ASTRITE_PER_PULL = 160;
+
+    private final int poolType;
+
+    private long pulls;
+    private long count3;
+    private long count4;
+    private long count5;
+    private long countUp5;
+
+    // 5★ pity positions with their 50-50 outcomes, and 4★ pity positions
+    private final pityHistogram pity = new pityHistogram();
+
+    private int longestWinStreak;
+    private int longestLossStreak;
+
+    bannerSummary(int poolType) {
+        this.poolType = poolType;
+    }
+
+    void recordPull(int result) {
+        pulls++;
+        switch (result) {
+            case pullEngine.RESULT_3:   count3++;   break;
+            case pullEngine.RESULT_4:   count4++;   break;
+            case pullEngine.RESULT_5:   count5++;   break;
+            case pullEngine.RESULT_UP5: countUp5++; break;
+        }
+    }
+
+    /**
+     * Records a 5★ at the given pity position; {@code fiftyFifty} is FIFTY_NONE on banners without a 50-50.
+     */
+    void record5(int pity, int fiftyFifty) {
+        this.pity.add5(pity, fiftyFifty);
+    }
+
+    void record4(int pity) {
+        this.pity.add4(pity);
+    }
+
+    void recordStreaks(int winStreak, int lossStreak) {
+        longestWinStreak = Math.max(longestWinStreak, winStreak);
+        longestLossStreak = Math.max(longestLossStreak, lossStreak);
+    }
+
+    public int getPoolType() {
+        return poolType;
+    }
+
+    /**
+     * Display name of the banner type, e.g. "Featured Resonator".
+     */
+    public String getPoolName() {
+        return conveneAnalyzer.poolName(poolType);
+    }
+
+    public long getPulls() {
+        return pulls;
+    }
+
+    public long getAstrite() {
+        return pulls * ASTRITE_PER_PULL;
+    }
+
+    public long getCount3() {
+        return count3;
+    }
+
+    public long getCount4() {
+        return count4;
+    }
+
+    public long getCount5() {
+        return count5;
+    }
+
+    public long getCountUp5() {
+        return countUp5;
+    }
+
+    /**
+     * Returns a copy of the pity histogram (5★ positions by 50-50 outcome, 4★ positions).
+     */
+    public pityHistogram getPityHistogram() {
+        return pity.copy();
+    }
+
+    public double getAveragePity5() {
+        return pity.getAveragePity5();
+    }
+
+    public double getAveragePity4() {
+        return pity.getAveragePity4();
+    }
+
+    public long getFiftyFiftyWins() {
+        return pity.getFiftyFifty(pullEngine.FIFTY_WON);
+    }
+
+    public long getFiftyFiftyLosses() {
+        return pity.getFiftyFifty(pullEngine.FIFTY_LOST);
+    }
+
+    public long getGuaranteedFeatured() {
+        return pity.getFiftyFifty(pullEngine.FIFTY_GUARANTEED);
+    }
+
+    /**
+     * Longest run of consecutive won 50-50s within one account.
+     */
+    public int getLongestWinStreak() {
+        return longestWinStreak;
+    }
+
+    /**
+     * Longest run of consecutive lost 50-50s within one account.
+     */
+    public int getLongestLossStreak() {
+        return longestLossStreak;
+    }
+
+    /**
+     * Average Astrite spent per 5★ (featured or not), or 0 if there are none.
+     */
+    public double getAstritePer5() {
+        long all5 = count5 + countUp5;
+        return (all5 == 0) ? 0.0 : (double) getAstrite() / all5;
+    }
+}
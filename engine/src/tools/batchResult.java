@@ -0,0 +1,117 @@
+package tools;
+
+/**
+ * Aggregate outcome of a {@link pullBatch} run.
+ *
+ * - count3/count4/count5/countUp5: total results of each rarity over all trials.
+ * - pullsToFeatured[k]: how many featured 5★ were obtained exactly k pulls after
+ *   the previous featured 5★ (or after the start of the trial).
+ * - unresolvedTrials: trials that ended with pulls left over since their last featured 5★.
+ * - pity: pity positions of every 5★/4★ and the 50-50 outcome of every 5★ (see {@link pityHistogram}).
+ */
+public class batchResult {
+
+    /** Worst case: lose the 50-50 at hard pity, then hit hard pity again. */
+    public static final int MAX_PULLS_TO_FEATURED = 160;
+
+    private long trials;
+    private long count3;
+    private long count4;
+    private long count5;
+    private long countUp5;
+    private long unresolvedTrials;
+    private final long[] pullsToFeatured = new long[MAX_PULLS_TO_FEATURED + 1];
+    private final pityHistogram pity = new pityHistogram();
+
+    /**
+     * Adds one pull result to the counters.
+     */
+    void record(int result) {
+        switch (result) {
+            case pullEngine.RESULT_3:   count3++;   break;
+            case pullEngine.RESULT_4:   count4++;   break;
+            case pullEngine.RESULT_5:   count5++;   break;
+            case pullEngine.RESULT_UP5: countUp5++; break;
+        }
+    }
+
+    /**
+     * Adds a run of 3★ results to the counters.
+     */
+    void recordThrees(long count) {
+        count3 += count;
+    }
+
+    void recordFeatured(int pullsSinceFeatured) {
+        pullsToFeatured[pullsSinceFeatured]++;
+    }
+
+    pityHistogram pity() {
+        return pity;
+    }
+
+    void recordTrial(boolean unresolved) {
+        trials++;
+        if (unresolved) {
+            unresolvedTrials++;
+        }
+    }
+
+    /**
+     * Adds the counts of another result into this one.
+     */
+    void merge(batchResult other) {
+        trials += other.trials;
+        count3 += other.count3;
+        count4 += other.count4;
+        count5 += other.count5;
+        countUp5 += other.countUp5;
+        unresolvedTrials += other.unresolvedTrials;
+        for (int i = 0; i < pullsToFeatured.length; i++) {
+            pullsToFeatured[i] += other.pullsToFeatured[i];
+        }
+        pity.merge(other.pity);
+    }
+
+    public long getTrials() {
+        return trials;
+    }
+
+    public long getCount3() {
+        return count3;
+    }
+
+    public long getCount4() {
+        return count4;
+    }
+
+    public long getCount5() {
+        return count5;
+    }
+
+    public long getCountUp5() {
+        return countUp5;
+    }
+
+    public long getTotalPulls() {
+        return count3 + count4 + count5 + countUp5;
+    }
+
+    public long getUnresolvedTrials() {
+        return unresolvedTrials;
+    }
+
+    /**
+     * Returns a copy of the pulls-to-featured histogram (index = number of pulls).
+     */
+    public long[] getPullsToFeatured() {
+        return pullsToFeatured.clone();
+    }
+
+    /**
+     * Returns a copy of the pity-position histogram over all trials.
+     */
+    public pityHistogram getPityHistogram() {
+        return pity.copy();
+    }
+}
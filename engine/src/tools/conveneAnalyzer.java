@@ -0,0 +1,282 @@
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Single-pass analyzer for imported convene records (see {@link conveneReader}).
+ *
+ * Records are fed one at a time and never stored. For each (account, banner) pair only
+ * a few counters are kept; results are folded into one {@link bannerSummary} per banner
+ * type. Memory therefore grows with the number of accounts, not the number of records.
+ *
+ * The game exports records newest first. In that order a 5★'s pity and 50-50 outcome are
+ * only known once the previous (older) 5★ has been read, so each banner keeps at most one
+ * pending 5★ and one pending 4★ that are resolved when the next rare pull or the end of
+ * the input ({@link #finish()}) is reached. Records in chronological order are supported too.
+ */
+public class conveneAnalyzer {
+
+    // Banner types as used in the game's cardPoolType field
+    public static final int POOL_FEATURED_RESONATOR = 1;
+    public static final int POOL_FEATURED_WEAPON = 2;
+    public static final int POOL_STANDARD_RESONATOR = 3;
+    public static final int POOL_STANDARD_WEAPON = 4;
+
+    private static final String[] POOL_NAMES = {
+            "Unknown", "Featured Resonator", "Featured Weapon", "Standard Resonator",
+            "Standard Weapon", "Beginner", "Beginner's Choice", "Giveback"
+    };
+
+    /** 5★ resonators from the standard pool; pulling one on a featured banner loses the 50-50. */
+    public static final Set<String> STANDARD_5_STAR = Set.of(
+            "Verina", "Encore", "Calcharo", "Lingyang", "Jianxin");
+
+    private final boolean newestFirst;
+    private final Set<String> standard5Star;
+
+    private final Map<String, accountBanner[]> accounts = new HashMap<>();
+    private final Map<Integer, bannerSummary> summaries = new TreeMap<>();
+    private long records;
+
+    /**
+     * Creates an analyzer for records in the game's export order (newest first).
+     */
+    public conveneAnalyzer() {
+        this(true, STANDARD_5_STAR);
+    }
+
+    /**
+     * @param newestFirst   true if each account's records come newest first
+     * @param standard5Star names of the non-featured 5★ on the featured resonator banner
+     */
+    public conveneAnalyzer(boolean newestFirst, Set<String> standard5Star) {
+        this.newestFirst = newestFirst;
+        this.standard5Star = standard5Star;
+    }
+
+    /**
+     * Display name for a banner type.
+     */
+    public static String poolName(int poolType) {
+        return (poolType > 0 && poolType < POOL_NAMES.length) ? POOL_NAMES[poolType] : POOL_NAMES[0];
+    }
+
+    /**
+     * Feeds one convene record.
+     *
+     * @param player   account id, or "" if the log holds only one account
+     * @param poolType banner type (cardPoolType); a negative type counts as unknown (0), as in {@link #poolName}
+     * @param quality  rarity of the pulled item (3, 4 or 5)
+     * @param name     name of the pulled item
+     */
+    public void accept(String player, int poolType, int quality, String name) {
+        records++;
+        // One key for both the summary and the per-account state
+        poolType = Math.max(0, poolType);
+
+        boolean fiftyFiftyBanner = (poolType == POOL_FEATURED_RESONATOR);
+        boolean featured = (quality == 5) && isFeatured(poolType, name);
+        int result;
+        if (quality >= 5) {
+            result = featured ? pullEngine.RESULT_UP5 : pullEngine.RESULT_5;
+        } else {
+            result = (quality == 4) ? pullEngine.RESULT_4 : pullEngine.RESULT_3;
+        }
+
+        bannerSummary summary = summary(poolType);
+        summary.recordPull(result);
+
+        accountBanner state = state(player, poolType);
+        if (newestFirst) {
+            state.acceptNewestFirst(result, fiftyFiftyBanner, summary);
+        } else {
+            state.acceptChronological(result, fiftyFiftyBanner, summary);
+        }
+    }
+
+    /**
+     * Resolves the pulls still pending at the end of the input. Call once after the last record.
+     */
+    public void finish() {
+        for (accountBanner[] banners : accounts.values()) {
+            for (int poolType = 0; poolType < banners.length; poolType++) {
+                if (banners[poolType] != null) {
+                    banners[poolType].finish(summary(poolType));
+                }
+            }
+        }
+        accounts.clear();
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Summaries per banner type, ordered by type.
+     */
+    public Collection<bannerSummary> getSummaries() {
+        return new ArrayList<>(summaries.values());
+    }
+
+    private boolean isFeatured(int poolType, String name) {
+        switch (poolType) {
+            case POOL_FEATURED_RESONATOR:
+                return !standard5Star.contains(name);
+            case POOL_FEATURED_WEAPON:
+                // The featured weapon banner always gives the featured 5★
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private bannerSummary summary(int poolType) {
+        return summaries.computeIfAbsent(poolType, bannerSummary::new);
+    }
+
+    private accountBanner state(String player, int poolType) {
+        accountBanner[] banners = accounts.get(player);
+        if (banners == null || poolType >= banners.length) {
+            int length = Math.max(POOL_NAMES.length, poolType + 1);
+            banners = (banners == null) ? new accountBanner[length] : Arrays.copyOf(banners, length);
+            accounts.put(player, banners);
+        }
+        if (banners[poolType] == null) {
+            banners[poolType] = new accountBanner();
+        }
+        return banners[poolType];
+    }
+
+    /**
+     * Pity and 50-50 state of one account on one banner.
+     */
+    private static class accountBanner {
+        // Chronological order: pulls since the last 5★ / last 4★-or-5★, and the guarantee
+        int since5;
+        int since4;
+        boolean guaranteed;
+
+        // Newest-first order: the newer rare pull waiting for its pity, and pulls read since
+        int pending5 = -1;
+        int pendingCount5;
+        boolean pending4;
+        int pendingCount4;
+
+        // Consecutive won / lost 50-50s
+        int winStreak;
+        int lossStreak;
+
+        // Whether this banner has a 50-50, remembered for finish()
+        boolean fiftyFiftyBanner;
+
+        void acceptChronological(int result, boolean fiftyFiftyBanner, bannerSummary summary) {
+            since5++;
+            since4++;
+
+            if (result >= pullEngine.RESULT_5) {
+                int outcome = pullEngine.FIFTY_NONE;
+                if (fiftyFiftyBanner) {
+                    outcome = guaranteed ? pullEngine.FIFTY_GUARANTEED
+                            : (result == pullEngine.RESULT_UP5) ? pullEngine.FIFTY_WON : pullEngine.FIFTY_LOST;
+                    guaranteed = (result == pullEngine.RESULT_5);
+                }
+                record5(since5, outcome, summary);
+                since5 = 0;
+                since4 = 0;
+            } else if (result == pullEngine.RESULT_4) {
+                summary.record4(since4);
+                since4 = 0;
+            }
+        }
+
+        void acceptNewestFirst(int result, boolean fiftyFiftyBanner, bannerSummary summary) {
+            if (result >= pullEngine.RESULT_4) {
+                // This older rare pull closes the pity window of the pending newer 4★
+                if (pending4) {
+                    summary.record4(pendingCount4 + 1);
+                }
+                pending4 = (result == pullEngine.RESULT_4);
+                pendingCount4 = 0;
+            } else if (pending4) {
+                pendingCount4++;
+            }
+
+            if (result >= pullEngine.RESULT_5) {
+                // ... and a 5★ also closes the pending newer 5★, deciding its 50-50
+                if (pending5 >= 0) {
+                    int outcome = !fiftyFiftyBanner ? pullEngine.FIFTY_NONE
+                            : (result == pullEngine.RESULT_5) ? pullEngine.FIFTY_GUARANTEED
+                            : (pending5 == pullEngine.RESULT_UP5) ? pullEngine.FIFTY_WON : pullEngine.FIFTY_LOST;
+                    record5(pendingCount5 + 1, outcome, summary);
+                }
+                pending5 = result;
+                pendingCount5 = 0;
+            } else if (pending5 >= 0) {
+                pendingCount5++;
+            }
+            this.fiftyFiftyBanner = fiftyFiftyBanner;
+        }
+
+        /**
+         * Resolves pending pulls at the end of the input: the oldest 5★ counts from the
+         * start of the log and is treated as a 50-50 (no earlier loss is known).
+         */
+        void finish(bannerSummary summary) {
+            if (pending4) {
+                summary.record4(pendingCount4 + 1);
+            }
+            if (pending5 >= 0) {
+                int outcome = !fiftyFiftyBanner ? pullEngine.FIFTY_NONE
+                        : (pending5 == pullEngine.RESULT_UP5) ? pullEngine.FIFTY_WON : pullEngine.FIFTY_LOST;
+                record5(pendingCount5 + 1, outcome, summary);
+            }
+            pending4 = false;
+            pending5 = -1;
+        }
+
+        private void record5(int pity, int outcome, bannerSummary summary) {
+            summary.record5(pity, outcome);
+            if (outcome == pullEngine.FIFTY_WON) {
+                winStreak++;
+                lossStreak = 0;
+            } else if (outcome == pullEngine.FIFTY_LOST) {
+                lossStreak++;
+                winStreak = 0;
+            }
+            summary.recordStreaks(winStreak, lossStreak);
+        }
+    }
+
+    /**
+     * Formats the summaries as a plain-text report, one block per banner type.
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Records: " + records);
+        for (bannerSummary s : summaries.values()) {
+            lines.add("");
+            lines.add("== " + s.getPoolName() + " ==");
+            lines.add("Pulls: " + s.getPulls() + "  (" + s.getAstrite() + " Astrite)");
+            lines.add("4-Star: " + s.getCount4() + "   5-Star: " + s.getCount5() + "   up!5-Star: " + s.getCountUp5());
+            lines.add(String.format("Avg 5-Star Pity: %.1f   Avg 4-Star Pity: %.1f",
+                    s.getAveragePity5(), s.getAveragePity4()));
+            lines.add(String.format("Astrite per 5-Star: %.0f", s.getAstritePer5()));
+            if (s.getPoolType() == POOL_FEATURED_RESONATOR) {
+                long total = s.getFiftyFiftyWins() + s.getFiftyFiftyLosses();
+                lines.add(String.format("50-50: %d won / %d lost (%.1f%%), %d guaranteed",
+                        s.getFiftyFiftyWins(), s.getFiftyFiftyLosses(),
+                        (total == 0) ? 0.0 : 100.0 * s.getFiftyFiftyWins() / total, s.getGuaranteedFeatured()));
+                lines.add("Longest streak: " + s.getLongestWinStreak() + " won, " + s.getLongestLossStreak() + " lost");
+            }
+        }
+        return lines;
+    }
+}
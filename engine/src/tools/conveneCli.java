@@ -0,0 +1,57 @@
+package tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * Command-line report of exported convene records: the same per-banner summary as the
+ * pullAnalysis tab, one block per file. Uses only engine classes; AWT/Swing is never initialized.
+ *
+ * Run with: java -cp engine.jar tools.conveneCli records.json|records.csv...
+ */
+public final class conveneCli {
+
+    public static final String USAGE = "Usage: pullAnalysis <records.json|records.csv>...";
+
+    // Exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private conveneCli() {
+    }
+
+    public static void main(String[] args) {
+        int code = run(args, System.out, System.err);
+        if (code != EXIT_OK) {
+            System.exit(code);
+        }
+    }
+
+    /**
+     * Analyzes each file and prints its name and report to {@code out}. Files that cannot be
+     * read are reported to {@code err} and skipped.
+     *
+     * @return EXIT_OK, EXIT_FAILED if a file could not be read, or EXIT_USAGE without files
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        int code = EXIT_OK;
+        for (String arg : args) {
+            try {
+                out.println(arg);
+                conveneAnalyzer analyzer = new conveneAnalyzer();
+                conveneReader.read(Path.of(arg), analyzer);
+                analyzer.report().forEach(out::println);
+            } catch (IOException | RuntimeException e) {
+                err.println("pullAnalysis: could not import " + arg + ": " + e.getMessage());
+                code = EXIT_FAILED;
+            }
+        }
+        return code;
+    }
+}
@@ -0,0 +1,431 @@
+package tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams convene records from an exported pull log into a {@link conveneAnalyzer}.
+ *
+ * Two formats are read:
+ *   JSON - any nesting of arrays and objects; every object with a "qualityLevel" field is a
+ *          record. Other fields used: "cardPoolType" (or "poolType"), "name", "playerId"
+ *          (or "uid"). A pool type or player id on an enclosing object applies to the
+ *          records inside it, as in exports grouped by banner.
+ *   CSV  - a header row naming the same columns, then one record per line; a quoted cell
+ *          may span lines.
+ *
+ * The input is tokenized character by character and each record is handed on as soon as
+ * it is complete, so files of any size are read in constant memory.
+ */
+public final class conveneReader {
+
+    // Deeper nesting than this is not a pull log and would only risk a stack overflow
+    private static final int MAX_DEPTH = 64;
+
+    private conveneReader() {
+    }
+
+    /**
+     * Reads a file, choosing the format by its extension (.csv, anything else is JSON).
+     */
+    public static void read(Path file, conveneAnalyzer analyzer) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                readCsv(in, analyzer);
+            } else {
+                readJson(in, analyzer);
+            }
+        }
+    }
+
+    // Known field names, matched case-insensitively
+    private static final int FIELD_OTHER = -1;
+    private static final int FIELD_POOL = 0;
+    private static final int FIELD_QUALITY = 1;
+    private static final int FIELD_NAME = 2;
+    private static final int FIELD_PLAYER = 3;
+
+    private static int field(String key) {
+        switch (key.trim().toLowerCase(Locale.ROOT)) {
+            case "cardpooltype": case "pooltype": case "pool":
+                return FIELD_POOL;
+            case "qualitylevel": case "quality": case "rarity":
+                return FIELD_QUALITY;
+            case "name": case "resourcename":
+                return FIELD_NAME;
+            case "playerid": case "uid": case "player":
+                return FIELD_PLAYER;
+            default:
+                return FIELD_OTHER;
+        }
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            // Some exports write numbers as "5.0"
+            try {
+                return (int) Double.parseDouble(value.trim());
+            } catch (NumberFormatException e2) {
+                return fallback;
+            }
+        }
+    }
+
+    // ---- CSV ----
+
+    /**
+     * Reads CSV records. The first record is the header; unknown columns are ignored.
+     */
+    public static void readCsv(Reader reader, conveneAnalyzer analyzer) throws IOException {
+        csvScanner in = new csvScanner(reader);
+        List<String> cells = new ArrayList<>();
+        if (!in.record(cells)) {
+            return;
+        }
+        if (cells.get(0).startsWith("\uFEFF")) {
+            cells.set(0, cells.get(0).substring(1));
+        }
+
+        int[] columns = { -1, -1, -1, -1 };
+        for (int c = 0; c < cells.size(); c++) {
+            int f = field(cells.get(c));
+            if (f != FIELD_OTHER && columns[f] < 0) {
+                columns[f] = c;
+            }
+        }
+        if (columns[FIELD_QUALITY] < 0) {
+            throw new IOException("CSV header has no quality column: " + String.join(",", cells));
+        }
+
+        while (in.record(cells)) {
+            if (cells.size() == 1 && cells.get(0).isBlank()) {
+                continue;
+            }
+            int quality = parseInt(cell(cells, columns[FIELD_QUALITY]), -1);
+            if (quality < 0) {
+                continue;
+            }
+            analyzer.accept(cell(cells, columns[FIELD_PLAYER]),
+                    parseInt(cell(cells, columns[FIELD_POOL]), 0),
+                    quality,
+                    cell(cells, columns[FIELD_NAME]));
+        }
+        analyzer.finish();
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return (column >= 0 && column < cells.size()) ? cells.get(column) : "";
+    }
+
+    /**
+     * Splits CSV input into records, character by character through one reused buffer.
+     * Quoted cells may contain commas, doubled quotes and line breaks (\n, \r\n or \r),
+     * so a record is not always one line.
+     */
+    private static class csvScanner {
+
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder cell = new StringBuilder();
+        private int position;
+        private int limit;
+
+        csvScanner(Reader in) {
+            this.in = in;
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = Math.max(0, in.read(buffer, 0, buffer.length));
+                position = 0;
+                if (limit == 0) {
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        private int next() throws IOException {
+            int ch = peek();
+            if (ch != -1) {
+                position++;
+            }
+            return ch;
+        }
+
+        /**
+         * Reads the next record into {@code cells}.
+         *
+         * @return false if the input has no more records
+         */
+        boolean record(List<String> cells) throws IOException {
+            cells.clear();
+            cell.setLength(0);
+            int ch = next();
+            if (ch == -1) {
+                return false;
+            }
+            boolean quoted = false;
+            for (; ch != -1; ch = next()) {
+                if (quoted) {
+                    if (ch != '"') {
+                        cell.append((char) ch);
+                    } else if (peek() == '"') {
+                        cell.append('"');
+                        next();
+                    } else {
+                        quoted = false;
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (ch == '\n') {
+                    break;
+                } else if (ch == '\r') {
+                    if (peek() == '\n') {
+                        next();
+                    }
+                    break;
+                } else {
+                    cell.append((char) ch);
+                }
+            }
+            cells.add(cell.toString());
+            return true;
+        }
+    }
+
+    // ---- JSON ----
+
+    /**
+     * Reads JSON records from any arrangement of arrays and objects.
+     *
+     * @throws IOException if the input is not well-formed JSON
+     */
+    public static void readJson(Reader reader, conveneAnalyzer analyzer) throws IOException {
+        jsonScanner scanner = new jsonScanner(reader, analyzer);
+        scanner.skipWhitespace();
+        if (scanner.peek() == '\uFEFF') {
+            scanner.next();
+        }
+        scanner.value(0, "", 0);
+        scanner.skipWhitespace();
+        if (scanner.peek() != -1) {
+            throw scanner.error("Unexpected data after the end");
+        }
+        analyzer.finish();
+    }
+
+    /**
+     * Minimal recursive-descent JSON scanner. Values are read through one reused buffer and
+     * containers are walked without building a tree.
+     */
+    private static class jsonScanner {
+
+        private final Reader in;
+        private final conveneAnalyzer analyzer;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+        private long offset;
+
+        jsonScanner(Reader in, conveneAnalyzer analyzer) {
+            this.in = in;
+            this.analyzer = analyzer;
+        }
+
+        int peek() throws IOException {
+            if (position == limit) {
+                offset += limit;
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        int next() throws IOException {
+            int ch = peek();
+            if (ch != -1) {
+                position++;
+            }
+            return ch;
+        }
+
+        void skipWhitespace() throws IOException {
+            int ch;
+            while ((ch = peek()) == ' ' || ch == '\n' || ch == '\r' || ch == '\t') {
+                position++;
+            }
+        }
+
+        void expect(char expected) throws IOException {
+            skipWhitespace();
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        IOException error(String message) {
+            return new IOException(message + " at character " + (offset + position));
+        }
+
+        /**
+         * Reads any value. Returns its text if it is a string or literal, null for a container.
+         * {@code player} and {@code poolType} are inherited from the enclosing objects.
+         */
+        String value(int depth, String player, int poolType) throws IOException {
+            skipWhitespace();
+            int ch = peek();
+            if (ch == '{') {
+                object(depth + 1, player, poolType);
+                return null;
+            } else if (ch == '[') {
+                array(depth + 1, player, poolType);
+                return null;
+            } else if (ch == '"') {
+                return string();
+            } else if (ch == -1) {
+                throw error("Unexpected end of input");
+            } else {
+                return literal();
+            }
+        }
+
+        private void checkDepth(int depth) throws IOException {
+            if (depth > MAX_DEPTH) {
+                throw error("Nesting deeper than " + MAX_DEPTH);
+            }
+        }
+
+        void array(int depth, String player, int poolType) throws IOException {
+            checkDepth(depth);
+            expect('[');
+            skipWhitespace();
+            if (peek() == ']') {
+                next();
+                return;
+            }
+            while (true) {
+                value(depth, player, poolType);
+                skipWhitespace();
+                int ch = next();
+                if (ch == ']') {
+                    return;
+                } else if (ch != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+            }
+        }
+
+        void object(int depth, String player, int poolType) throws IOException {
+            checkDepth(depth);
+            expect('{');
+
+            int quality = -1;
+            String name = "";
+            skipWhitespace();
+            if (peek() == '}') {
+                next();
+                return;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("Expected a field name");
+                }
+                int field = field(string());
+                expect(':');
+
+                String value = value(depth, player, poolType);
+                if (value != null) {
+                    switch (field) {
+                        case FIELD_POOL:    poolType = parseInt(value, poolType); break;
+                        case FIELD_QUALITY: quality = parseInt(value, -1);        break;
+                        case FIELD_NAME:    name = value;                         break;
+                        case FIELD_PLAYER:  player = value;                       break;
+                    }
+                }
+
+                skipWhitespace();
+                int ch = next();
+                if (ch == '}') {
+                    break;
+                } else if (ch != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+
+            if (quality >= 0) {
+                analyzer.accept(player, poolType, quality, name);
+            }
+        }
+
+        String string() throws IOException {
+            next();   // opening quote
+            text.setLength(0);
+            while (true) {
+                int ch = next();
+                if (ch == -1) {
+                    throw error("Unterminated string");
+                } else if (ch == '"') {
+                    return text.toString();
+                } else if (ch == '\\') {
+                    int escape = next();
+                    switch (escape) {
+                        case '"': case '\\': case '/': text.append((char) escape); break;
+                        case 'b': text.append('\b'); break;
+                        case 'f': text.append('\f'); break;
+                        case 'n': text.append('\n'); break;
+                        case 'r': text.append('\r'); break;
+                        case 't': text.append('\t'); break;
+                        case 'u':
+                            int code = 0;
+                            for (int i = 0; i < 4; i++) {
+                                int digit = Character.digit(next(), 16);
+                                if (digit < 0) {
+                                    throw error("Bad \\u escape");
+                                }
+                                code = code * 16 + digit;
+                            }
+                            text.append((char) code);
+                            break;
+                        default:
+                            throw error("Bad escape");
+                    }
+                } else {
+                    text.append((char) ch);
+                }
+            }
+        }
+
+        String literal() throws IOException {
+            text.setLength(0);
+            int ch;
+            while ((ch = peek()) != -1 && ch != ',' && ch != '}' && ch != ']'
+                    && ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t') {
+                text.append((char) ch);
+                position++;
+            }
+            if (text.length() == 0) {
+                throw error("Unexpected character");
+            }
+            return text.toString();
+        }
+    }
+}
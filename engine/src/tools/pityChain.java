@@ -0,0 +1,155 @@
+package tools;
+
+/**
+ * Exact solver for the pity model of {@link pullEngine}.
+ *
+ * The pity rules form a small Markov chain over (counter_5, counter_4, featured_rate).
+ * The 5★ chance only depends on counter_5 and every 5★ resets both counters,
+ * so counter_4 never influences when the next 5★ (featured or not) lands.
+ * That leaves at most 80 x 2 states, and the distributions below are computed
+ * directly instead of being estimated by Monte Carlo.
+ *
+ * All distributions are returned as arrays where index k holds P(X = k).
+ */
+public final class pityChain {
+
+    // Every pity counter at or above this value has a 5★ rate of 1.0
+    private static final int MAX_COUNTER_5 = 79;
+
+    // Probabilities below this are treated as zero when cutting off the tail
+    private static final double EPSILON = 1e-18;
+
+    // Distribution of pulls between two featured 5★ from a fresh state; shared by all queries
+    private static final double[] FRESH_TO_FEATURED = pullsToFeatured(0, false);
+
+    private pityChain() {
+    }
+
+    /**
+     * Distribution of the number of pulls until the next 5★ (featured or not),
+     * starting from the given 5★ pity counter.
+     */
+    public static double[] pullsToNext5(int counter5) {
+        checkCounter(counter5);
+
+        double[] dist = new double[MAX_COUNTER_5 - counter5 + 2];
+        double survive = 1.0;
+        for (int k = 1; k < dist.length && survive > 0.0; k++) {
+            double rate = pityTable.DEFAULT.get5Rate(counter5 + k - 1);
+            dist[k] = survive * rate;
+            survive *= 1.0 - rate;
+        }
+        return dist;
+    }
+
+    /**
+     * Distribution of the number of pulls until the next featured ("up!") 5★.
+     *
+     * @param counter5   current 5★ pity counter (0..79)
+     * @param guaranteed true if the previous 5★ was non-featured (featured_rate == 1.0)
+     */
+    public static double[] pullsToFeatured(int counter5, boolean guaranteed) {
+        double[] first = pullsToNext5(counter5);
+        if (guaranteed) {
+            return first;
+        }
+
+        // Win the 50-50 on the first 5★, or lose it and wait for a second 5★ from zero pity
+        double win = pityTable.DEFAULT.getFeaturedRate();
+        double[] second = pullsToNext5(0);
+        double[] dist = new double[first.length + second.length - 1];
+        for (int i = 1; i < first.length; i++) {
+            dist[i] += win * first[i];
+            double lose = (1.0 - win) * first[i];
+            for (int j = 1; j < second.length; j++) {
+                dist[i + j] += lose * second[j];
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Distribution of the number of featured 5★ obtained within the next {@code pulls} pulls.
+     *
+     * After a featured 5★ the chain is back in its fresh state, so the count is a renewal
+     * process: P(count >= k) is the chance that the first k featured 5★ fit into {@code pulls}.
+     *
+     * @param pulls      number of pulls to look ahead
+     * @param counter5   current 5★ pity counter (0..79)
+     * @param guaranteed true if the previous 5★ was non-featured (featured_rate == 1.0)
+     */
+    public static double[] featuredCountAfter(int pulls, int counter5, boolean guaranteed) {
+        if (pulls < 0) {
+            throw new IllegalArgumentException("pulls must not be negative: " + pulls);
+        }
+
+        // atLeast[k] = P(count >= k); arrival[n] = P(k-th featured 5★ lands on pull n)
+        double[] atLeast = new double[pulls + 2];
+        atLeast[0] = 1.0;
+        double[] arrival = truncate(pullsToFeatured(counter5, guaranteed), pulls);
+
+        int k = 1;
+        while (k <= pulls) {
+            double mass = sum(arrival);
+            if (mass < EPSILON) {
+                break;
+            }
+            atLeast[k] = mass;
+            arrival = convolve(arrival, FRESH_TO_FEATURED, pulls);
+            k++;
+        }
+
+        double[] dist = new double[k];
+        for (int i = 0; i < k; i++) {
+            dist[i] = atLeast[i] - atLeast[i + 1];
+        }
+        return dist;
+    }
+
+    /**
+     * Expected value of a distribution returned by this class.
+     */
+    public static double mean(double[] dist) {
+        double mean = 0.0;
+        for (int k = 1; k < dist.length; k++) {
+            mean += k * dist[k];
+        }
+        return mean;
+    }
+
+    private static void checkCounter(int counter5) {
+        if (counter5 < 0 || counter5 > MAX_COUNTER_5) {
+            throw new IllegalArgumentException("counter_5 out of range 0.." + MAX_COUNTER_5 + ": " + counter5);
+        }
+    }
+
+    private static double[] truncate(double[] dist, int maxIndex) {
+        double[] out = new double[maxIndex + 1];
+        System.arraycopy(dist, 0, out, 0, Math.min(dist.length, out.length));
+        return out;
+    }
+
+    private static double sum(double[] dist) {
+        double total = 0.0;
+        for (double p : dist) {
+            total += p;
+        }
+        return total;
+    }
+
+    /**
+     * Convolution of two distributions, keeping only indices up to {@code maxIndex}.
+     */
+    private static double[] convolve(double[] a, double[] b, int maxIndex) {
+        double[] out = new double[maxIndex + 1];
+        for (int i = 1; i <= maxIndex && i < a.length; i++) {
+            if (a[i] == 0.0) {
+                continue;
+            }
+            for (int j = 1; j < b.length && i + j <= maxIndex; j++) {
+                out[i + j] += a[i] * b[j];
+            }
+        }
+        return out;
+    }
+}
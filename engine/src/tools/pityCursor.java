@@ -0,0 +1,102 @@
+package tools;
+
+/**
+ * The pity rules in one place: the mutable pity state of one player and the transition of
+ * a single pull. {@link pullEngine} and {@link pityState} both pull through a subclass, and
+ * differ only in where the random numbers come from ({@link #draw()}); {@link pullPopulation}
+ * uses the static rules on its lanes.
+ *
+ * A pull draws once to decide 5★ / 4★ / 3★, and once more for the 50-50 of a 5★ that is not
+ * guaranteed. Keeping that order fixed is what lets a pityState and an engine with the same
+ * {@link seededRandom} produce the same pulls.
+ */
+abstract class pityCursor {
+
+    // Pity counters:
+    //  - counter4: Number of consecutive pulls with no 4★ or 5★
+    //  - counter5: Number of consecutive pulls with no 5★
+    int counter4;
+    int counter5;
+
+    // Whether the next 5★ is guaranteed featured. If you lose once (non-featured 5★),
+    // the next 5★ is guaranteed featured (featured_rate=1).
+    // After pulling a featured 5★, it goes back to the 50-50 (featured_rate=0.5).
+    boolean guaranteed;
+
+    /**
+     * Draws the next uniform 53-bit value (see {@link pityTable#draw(long)}).
+     */
+    abstract long draw();
+
+    /**
+     * Performs one pull and updates the pity state.
+     *
+     * @return one of RESULT_3, RESULT_4, RESULT_5, RESULT_UP5
+     */
+    final int pullOne(pityTable table) {
+        long u = draw();
+        int result;
+        if (u < table.threshold5(counter5)) {
+            result = resolve5(table);
+        } else {
+            result = (u < table.threshold45(counter5, counter4)) ? pullEngine.RESULT_4 : pullEngine.RESULT_3;
+        }
+        apply(result);
+        return result;
+    }
+
+    /**
+     * Resolves a pull that is known to be a 4★ or 5★ (turbo mode) and updates the pity state.
+     */
+    final int pullRare(pityTable table) {
+        int result = (draw() < table.rare5Threshold(counter5, counter4)) ? resolve5(table) : pullEngine.RESULT_4;
+        apply(result);
+        return result;
+    }
+
+    /**
+     * Featured or not for a 5★: guaranteed, or one more draw for the 50-50.
+     */
+    private int resolve5(pityTable table) {
+        return (guaranteed || draw() < table.featuredThreshold()) ? pullEngine.RESULT_UP5 : pullEngine.RESULT_5;
+    }
+
+    /**
+     * Advances the pity state past a pull with the given result.
+     */
+    final void apply(int result) {
+        counter5 = nextCounter5(counter5, result);
+        counter4 = nextCounter4(counter4, result);
+        guaranteed = nextGuaranteed(guaranteed, result);
+    }
+
+    // ========== Rules ==========
+
+    /** counter_5 after a pull: a 5★ resets it. */
+    static int nextCounter5(int counter5, int result) {
+        return (result >= pullEngine.RESULT_5) ? 0 : counter5 + 1;
+    }
+
+    /** counter_4 after a pull: a 4★ or 5★ resets it. */
+    static int nextCounter4(int counter4, int result) {
+        return (result == pullEngine.RESULT_3) ? counter4 + 1 : 0;
+    }
+
+    /** A lost 50-50 guarantees the next 5★; a featured 5★ uses the guarantee up. */
+    static boolean nextGuaranteed(boolean guaranteed, int result) {
+        return (result == pullEngine.RESULT_5) || (guaranteed && result != pullEngine.RESULT_UP5);
+    }
+
+    /**
+     * The 50-50 outcome of a pull, as reported to {@link pullListener#onPull}.
+     */
+    static int fiftyFifty(int result, boolean wasGuaranteed) {
+        if (result < pullEngine.RESULT_5) {
+            return pullEngine.FIFTY_NONE;
+        }
+        if (wasGuaranteed) {
+            return pullEngine.FIFTY_GUARANTEED;
+        }
+        return (result == pullEngine.RESULT_UP5) ? pullEngine.FIFTY_WON : pullEngine.FIFTY_LOST;
+    }
+}
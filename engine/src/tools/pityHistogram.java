@@ -0,0 +1,268 @@
+package tools;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Histogram of the pity positions at which 5★ and 4★ results landed.
+ *
+ * - 5★ buckets (1..80) are split by 50-50 outcome (FIFTY_NONE .. FIFTY_GUARANTEED from
+ *   {@link pullEngine}), so the win rate conditional on the pity position can be read off directly.
+ * - 4★ buckets (1..10) count pulls since the previous 4★ or 5★.
+ *
+ * Updated in O(1) per pull as a {@link pullListener}; histograms from other sessions or threads
+ * are combined with {@link #merge(pityHistogram)}. Positions outside the range (possible in
+ * imported data) are counted in the first or last bucket. Not thread-safe: use one instance
+ * per thread and merge.
+ */
+public class pityHistogram implements pullListener {
+
+    public static final int MAX_PITY_5 = pityTable.COUNTER_5_SIZE;
+    public static final int MAX_PITY_4 = pityTable.COUNTER_4_SIZE;
+
+    // Size of the state written by write(ByteBuffer): the pull count and every bucket
+    static final int BYTES = (1 + 4 * (MAX_PITY_5 + 1) + (MAX_PITY_4 + 1)) * Long.BYTES;
+
+    // pity5[outcome][k] = 5★ with that 50-50 outcome that landed on pull k since the previous 5★
+    private final long[][] pity5 = new long[4][MAX_PITY_5 + 1];
+    // pity4[k] = 4★ that landed on pull k since the previous 4★ or 5★
+    private final long[] pity4 = new long[MAX_PITY_4 + 1];
+    private long pulls;
+
+    /**
+     * Builds the histogram of a stored result sequence, deriving pity positions and
+     * 50-50 outcomes from the results themselves (as {@link pullStats} does).
+     */
+    public static pityHistogram of(pullStore history) {
+        pityHistogram histogram = new pityHistogram();
+        histogram.replay(history, 0);
+        return histogram;
+    }
+
+    /**
+     * Adds the results from {@code from} to the end of the store, as {@link #of} counts them
+     * when it reads the whole store; used to bring a checkpointed histogram up to date.
+     *
+     * The pity positions at {@code from} are found by looking back at most MAX_PITY_5 results.
+     * If there is no 5★ that far back the 5★ position is at least MAX_PITY_5, which lands in
+     * the last bucket anyway, and the 50-50 is taken as not guaranteed.
+     */
+    void replay(pullStore history, long from) {
+        int since5 = (int) Math.min(from, MAX_PITY_5);
+        int since4 = -1;
+        boolean guaranteed = false;
+        for (int back = 1; back <= MAX_PITY_5 && back <= from; back++) {
+            int result = history.get(from - back);
+            if (since4 < 0 && result != pullEngine.RESULT_3) {
+                since4 = back - 1;
+            }
+            if (result >= pullEngine.RESULT_5) {
+                since5 = back - 1;
+                guaranteed = (result == pullEngine.RESULT_5);
+                break;
+            }
+        }
+        if (since4 < 0) {
+            since4 = since5;
+        }
+
+        long size = history.size();
+        for (long i = from; i < size; i++) {
+            int result = history.get(i);
+            since5++;
+            since4++;
+            if (result >= pullEngine.RESULT_5) {
+                boolean featured = (result == pullEngine.RESULT_UP5);
+                add5(since5, guaranteed ? pullEngine.FIFTY_GUARANTEED
+                        : featured ? pullEngine.FIFTY_WON : pullEngine.FIFTY_LOST);
+                guaranteed = !featured;
+                since5 = 0;
+                since4 = 0;
+            } else if (result == pullEngine.RESULT_4) {
+                add4(since4);
+                since4 = 0;
+            }
+        }
+        pulls += size - from;
+    }
+
+    @Override
+    public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+        pulls++;
+        if (result >= pullEngine.RESULT_5) {
+            add5(pity5, fiftyFifty);
+        } else if (result == pullEngine.RESULT_4) {
+            add4(pity4);
+        }
+    }
+
+    @Override
+    public void onThrees(int count, int pity5, int pity4) {
+        pulls += count;
+    }
+
+    /**
+     * Counts a 5★ at the given pity position with the given 50-50 outcome.
+     * Does not count a pull; use {@link #onPull} for that.
+     */
+    public void add5(int pity, int fiftyFifty) {
+        pity5[fiftyFifty][clamp(pity, MAX_PITY_5)]++;
+    }
+
+    /**
+     * Counts a 4★ at the given pity position. Does not count a pull.
+     */
+    public void add4(int pity) {
+        pity4[clamp(pity, MAX_PITY_4)]++;
+    }
+
+    private static int clamp(int pity, int max) {
+        return Math.max(1, Math.min(pity, max));
+    }
+
+    /**
+     * Adds the counts of another histogram into this one.
+     */
+    public void merge(pityHistogram other) {
+        pulls += other.pulls;
+        for (int outcome = 0; outcome < pity5.length; outcome++) {
+            for (int k = 0; k <= MAX_PITY_5; k++) {
+                pity5[outcome][k] += other.pity5[outcome][k];
+            }
+        }
+        for (int k = 0; k <= MAX_PITY_4; k++) {
+            pity4[k] += other.pity4[k];
+        }
+    }
+
+    /**
+     * Returns an independent copy, e.g. to hand to the UI while pulls continue.
+     */
+    public pityHistogram copy() {
+        pityHistogram copy = new pityHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Writes the full state to the buffer (see {@link pullLogCheckpoint}).
+     */
+    void write(ByteBuffer out) {
+        out.putLong(pulls);
+        for (long[] buckets : pity5) {
+            for (long count : buckets) {
+                out.putLong(count);
+            }
+        }
+        for (long count : pity4) {
+            out.putLong(count);
+        }
+    }
+
+    /**
+     * Replaces the state with one written by {@link #write(ByteBuffer)}.
+     */
+    void read(ByteBuffer in) {
+        pulls = in.getLong();
+        for (long[] buckets : pity5) {
+            for (int k = 0; k < buckets.length; k++) {
+                buckets[k] = in.getLong();
+            }
+        }
+        for (int k = 0; k < pity4.length; k++) {
+            pity4[k] = in.getLong();
+        }
+    }
+
+    public void clear() {
+        pulls = 0;
+        for (long[] buckets : pity5) {
+            Arrays.fill(buckets, 0);
+        }
+        Arrays.fill(pity4, 0);
+    }
+
+    /**
+     * Number of pulls seen through {@link #onPull}/{@link #onThrees} (or {@link #of}).
+     */
+    public long getPulls() {
+        return pulls;
+    }
+
+    /**
+     * Number of 5★ (any outcome) that landed at the given pity position.
+     */
+    public long getCount5(int pity) {
+        return pity5[pullEngine.FIFTY_NONE][pity] + pity5[pullEngine.FIFTY_WON][pity]
+                + pity5[pullEngine.FIFTY_LOST][pity] + pity5[pullEngine.FIFTY_GUARANTEED][pity];
+    }
+
+    /**
+     * Number of 5★ with the given 50-50 outcome that landed at the given pity position.
+     */
+    public long getCount5(int pity, int fiftyFifty) {
+        return pity5[fiftyFifty][pity];
+    }
+
+    public long getCount4(int pity) {
+        return pity4[pity];
+    }
+
+    public long getTotal5() {
+        long total = 0;
+        for (int k = 1; k <= MAX_PITY_5; k++) {
+            total += getCount5(k);
+        }
+        return total;
+    }
+
+    public long getTotal4() {
+        long total = 0;
+        for (int k = 1; k <= MAX_PITY_4; k++) {
+            total += pity4[k];
+        }
+        return total;
+    }
+
+    /**
+     * Total number of 5★ with the given 50-50 outcome, over all pity positions.
+     */
+    public long getFiftyFifty(int fiftyFifty) {
+        long total = 0;
+        for (int k = 1; k <= MAX_PITY_5; k++) {
+            total += pity5[fiftyFifty][k];
+        }
+        return total;
+    }
+
+    /**
+     * Fraction of 50-50s won among 5★ that landed at the given pity position,
+     * or NaN if none did.
+     */
+    public double getWinRate(int pity) {
+        long won = pity5[pullEngine.FIFTY_WON][pity];
+        long lost = pity5[pullEngine.FIFTY_LOST][pity];
+        return (won + lost == 0) ? Double.NaN : (double) won / (won + lost);
+    }
+
+    public double getAveragePity5() {
+        long count = 0;
+        long sum = 0;
+        for (int k = 1; k <= MAX_PITY_5; k++) {
+            long n = getCount5(k);
+            count += n;
+            sum += k * n;
+        }
+        return (count == 0) ? 0.0 : (double) sum / count;
+    }
+
+    public double getAveragePity4() {
+        long count = 0;
+        long sum = 0;
+        for (int k = 1; k <= MAX_PITY_4; k++) {
+            count += pity4[k];
+            sum += k * pity4[k];
+        }
+        return (count == 0) ? 0.0 : (double) sum / count;
+    }
+}
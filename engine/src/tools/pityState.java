@@ -0,0 +1,117 @@
+package tools;
+
+/**
+ * Immutable pity state of one player: the two pity counters, the featured guarantee and
+ * the state of the SplitMix64 random sequence (see {@link seededRandom}).
+ *
+ * Pulling is a pure function: {@link #next(pityTable)} and {@link #pull(long, pityTable, pullListener)}
+ * return a new state and never change this one, so a state can be shared freely between
+ * threads and any pull can be replayed from the state it started in. The transition draws
+ * exactly as {@link pullEngine#pullOne()} does with a seededRandom, so an engine created by
+ * {@link #toEngine()} produces the same pulls.
+ *
+ * @param counter4   pulls since the last 4★ or 5★ (0..9)
+ * @param counter5   pulls since the last 5★ (0..79)
+ * @param guaranteed whether the next 5★ is guaranteed featured
+ * @param rngState   SplitMix64 state the next draw is derived from
+ */
+public record pityState(int counter4, int counter5, boolean guaranteed, long rngState) {
+
+    public pityState {
+        if (counter4 < 0 || counter4 >= pityTable.COUNTER_4_SIZE
+                || counter5 < 0 || counter5 >= pityTable.COUNTER_5_SIZE) {
+            throw new IllegalArgumentException("Pity counters out of range: " + counter4 + ", " + counter5);
+        }
+    }
+
+    /**
+     * Fresh pity with the random sequence started from the seed.
+     */
+    public static pityState initial(long seed) {
+        return new pityState(0, 0, false, seed);
+    }
+
+    /**
+     * Captures the current state of an engine.
+     *
+     * @throws IllegalArgumentException if the engine does not draw from a {@link seededRandom},
+     *                                  whose state is the only one that can be captured
+     */
+    public static pityState of(pullEngine engine) {
+        if (!(engine.getRandom() instanceof seededRandom)) {
+            throw new IllegalArgumentException("Engine random state cannot be captured: " + engine.getRandom());
+        }
+        return new pityState(engine.getCounter4(), engine.getCounter5(), engine.isGuaranteed(),
+                ((seededRandom) engine.getRandom()).getState());
+    }
+
+    /**
+     * Creates an engine that continues from this state.
+     */
+    public pullEngine toEngine() {
+        pullEngine engine = new pullEngine(new seededRandom(rngState));
+        engine.restore(counter4, counter5, guaranteed);
+        return engine;
+    }
+
+    /**
+     * Fresh pity and no guarantee, continuing the same random sequence.
+     */
+    public pityState reset() {
+        return new pityState(0, 0, false, rngState);
+    }
+
+    /**
+     * Performs one pull from this state.
+     */
+    public pullStep next(pityTable table) {
+        cursor c = new cursor(this);
+        int pity5 = c.counter5 + 1;
+        int pity4 = c.counter4 + 1;
+        boolean wasGuaranteed = c.guaranteed;
+        int result = c.pullOne(table);
+        return new pullStep(c.toState(), result, pity5, pity4, pityCursor.fiftyFifty(result, wasGuaranteed));
+    }
+
+    /**
+     * Performs {@code pulls} pulls from this state, reporting each one to the listener
+     * as {@link pullEngine#pull(long, pullListener)} does, and returns the state after them.
+     */
+    public pityState pull(long pulls, pityTable table, pullListener listener) {
+        cursor c = new cursor(this);
+        for (long i = 0; i < pulls; i++) {
+            int pity5 = c.counter5 + 1;
+            int pity4 = c.counter4 + 1;
+            boolean wasGuaranteed = c.guaranteed;
+            int result = c.pullOne(table);
+            listener.onPull(result, pity5, pity4, pityCursor.fiftyFifty(result, wasGuaranteed));
+        }
+        return c.toState();
+    }
+
+    /**
+     * Working copy of a state in locals, so a batch of pulls does not allocate per pull.
+     * Never escapes the method that created it. Pulls by the shared {@link pityCursor} rules,
+     * drawing from the SplitMix64 sequence as a {@link seededRandom} would.
+     */
+    private static final class cursor extends pityCursor {
+        long rng;
+
+        cursor(pityState state) {
+            counter4 = state.counter4;
+            counter5 = state.counter5;
+            guaranteed = state.guaranteed;
+            rng = state.rngState;
+        }
+
+        @Override
+        long draw() {
+            rng += seededRandom.GOLDEN_GAMMA;
+            return pityTable.draw(seededRandom.mix(rng));
+        }
+
+        pityState toState() {
+            return new pityState(counter4, counter5, guaranteed, rng);
+        }
+    }
+}
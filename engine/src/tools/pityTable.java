@@ -0,0 +1,185 @@
+package tools;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Precomputed pity curves for {@link pullEngine}.
+ *
+ * The soft/hard pity rates are evaluated once per counter value and stored as integer
+ * thresholds on a 53-bit uniform draw ({@code nextLong() >>> 11}, the same bits
+ * {@code nextDouble()} uses). A pull then needs one table lookup and one compare:
+ *   u < threshold5[counter_5]                     -> 5★
+ *   u < threshold45[counter_5 * 10 + counter_4]   -> 4★ (covers chance5 + chance4)
+ * which is exactly equivalent to the original {@code u * 2^-53 < rate} comparisons.
+ *
+ * For the skip-ahead ("turbo") mode it also holds, per (counter_5, counter_4) state, the CDF
+ * of the number of pulls until the next 4★-or-5★ and the chance that this rare pull is a 5★.
+ * Hard pity on 4★ bounds that run to at most COUNTER_4_SIZE pulls.
+ */
+public final class pityTable {
+
+    // Number of distinct values counter_5 / counter_4 can take before hard pity kicks in
+    public static final int COUNTER_5_SIZE = 80;
+    public static final int COUNTER_4_SIZE = 10;
+
+    /** Scale of a 53-bit draw; a threshold of ONE always passes. */
+    static final long ONE = 1L << 53;
+
+    /** Table built from the default rates in {@link pullEngine}. */
+    public static final pityTable DEFAULT = new pityTable(
+            pullEngine::get5Rate, pullEngine::get4Rate, pullEngine.BASE_FEATURED_RATE);
+
+    /**
+     * Table with the default pity curves and a different chance to win the 50-50,
+     * e.g. 1.0 for a banner whose 5★ is always the featured one.
+     */
+    public static pityTable withFeaturedRate(double featuredRate) {
+        if (!(featuredRate >= 0.0 && featuredRate <= 1.0)) {
+            throw new IllegalArgumentException("featuredRate must be between 0 and 1: " + featuredRate);
+        }
+        return new pityTable(pullEngine::get5Rate, pullEngine::get4Rate, featuredRate);
+    }
+
+    private final double[] rate5 = new double[COUNTER_5_SIZE];
+    private final long[] threshold5 = new long[COUNTER_5_SIZE];
+    // Draws below this are a 5★ that also wins the 50-50 (rate5 * featuredRate)
+    private final long[] thresholdUp5 = new long[COUNTER_5_SIZE];
+    private final long[] threshold45 = new long[COUNTER_5_SIZE * COUNTER_4_SIZE];
+    private final double featuredRate;
+    private final long featuredThreshold;
+
+    // runCdf[state * COUNTER_4_SIZE + k] = threshold for P(run length <= k + 1)
+    private final long[] runCdf = new long[COUNTER_5_SIZE * COUNTER_4_SIZE * COUNTER_4_SIZE];
+    // rare5[state] = threshold for P(5★ | this pull is a 4★ or 5★)
+    private final long[] rare5 = new long[COUNTER_5_SIZE * COUNTER_4_SIZE];
+
+    /**
+     * Builds the tables from per-counter rate functions.
+     *
+     * @param rate5        5★ rate for a given counter_5
+     * @param rate4        4★ rate for a given counter_4
+     * @param featuredRate chance that a non-guaranteed 5★ is featured
+     */
+    pityTable(IntToDoubleFunction rate5, IntToDoubleFunction rate4, double featuredRate) {
+        for (int c5 = 0; c5 < COUNTER_5_SIZE; c5++) {
+            double chance5 = rate5.applyAsDouble(c5);
+            this.rate5[c5] = chance5;
+            threshold5[c5] = toThreshold(chance5);
+
+            for (int c4 = 0; c4 < COUNTER_4_SIZE; c4++) {
+                threshold45[c5 * COUNTER_4_SIZE + c4] = toThreshold(chance5 + rate4.applyAsDouble(c4));
+            }
+        }
+        this.featuredRate = featuredRate;
+        this.featuredThreshold = toThreshold(featuredRate);
+        for (int c5 = 0; c5 < COUNTER_5_SIZE; c5++) {
+            thresholdUp5[c5] = toThreshold(this.rate5[c5] * featuredRate);
+        }
+
+        for (int c5 = 0; c5 < COUNTER_5_SIZE; c5++) {
+            for (int c4 = 0; c4 < COUNTER_4_SIZE; c4++) {
+                int state = c5 * COUNTER_4_SIZE + c4;
+                double chance5 = rate5.applyAsDouble(c5);
+                double rare = Math.min(1.0, chance5 + rate4.applyAsDouble(c4));
+                rare5[state] = toThreshold(chance5 / rare);
+
+                // Every 3★ moves both counters up by one; accumulate the CDF of the first rare pull
+                double cdf = 0.0;
+                double survive = 1.0;
+                for (int k = 0; k < COUNTER_4_SIZE; k++) {
+                    int i = state * COUNTER_4_SIZE + k;
+                    int n5 = Math.min(c5 + k, COUNTER_5_SIZE - 1);
+                    int n4 = Math.min(c4 + k, COUNTER_4_SIZE - 1);
+                    double hazard = Math.min(1.0, rate5.applyAsDouble(n5) + rate4.applyAsDouble(n4));
+                    cdf += survive * hazard;
+                    survive *= 1.0 - hazard;
+                    // Once a pull is certain to be rare, the CDF is exactly 1 from there on
+                    runCdf[i] = (survive == 0.0 || (k > 0 && runCdf[i - 1] == ONE)) ? ONE : toThreshold(cdf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a probability into the number of 53-bit draws that fall below it.
+     * Scaling by 2^53 is exact, so {@code u < toThreshold(p)} iff {@code u * 2^-53 < p}.
+     */
+    static long toThreshold(double probability) {
+        if (probability >= 1.0) {
+            return ONE;
+        }
+        if (probability <= 0.0) {
+            return 0L;
+        }
+        return (long) Math.ceil(probability * ONE);
+    }
+
+    /**
+     * Draws a uniform 53-bit value from a raw 64-bit random long.
+     */
+    static long draw(long bits) {
+        return bits >>> 11;
+    }
+
+    long threshold5(int counter5) {
+        return threshold5[counter5];
+    }
+
+    /**
+     * Threshold for "5★ and won the 50-50" on the same draw as {@link #threshold5(int)}:
+     * given u < threshold5, u is uniform below it, so u < thresholdUp5 has the featured rate.
+     */
+    long thresholdUp5(int counter5) {
+        return thresholdUp5[counter5];
+    }
+
+    long threshold45(int counter5, int counter4) {
+        return threshold45[counter5 * COUNTER_4_SIZE + counter4];
+    }
+
+    long featuredThreshold() {
+        return featuredThreshold;
+    }
+
+    // The tables themselves (not copies), for the gathers of pullPopulationVector
+
+    long[] threshold5Table() {
+        return threshold5;
+    }
+
+    long[] thresholdUp5Table() {
+        return thresholdUp5;
+    }
+
+    long[] threshold45Table() {
+        return threshold45;
+    }
+
+    /**
+     * Samples how many pulls it takes from the given state until the next 4★ or 5★,
+     * including that pull (1..COUNTER_4_SIZE), from one 53-bit draw.
+     */
+    int runLength(int counter5, int counter4, long u) {
+        int base = (counter5 * COUNTER_4_SIZE + counter4) * COUNTER_4_SIZE;
+        int k = 0;
+        while (k < COUNTER_4_SIZE - 1 && u >= runCdf[base + k]) {
+            k++;
+        }
+        return k + 1;
+    }
+
+    long rare5Threshold(int counter5, int counter4) {
+        return rare5[counter5 * COUNTER_4_SIZE + counter4];
+    }
+
+    /**
+     * Returns the 5★ rate for the given counter_5.
+     */
+    public double get5Rate(int counter5) {
+        return rate5[counter5];
+    }
+
+    public double getFeaturedRate() {
+        return featuredRate;
+    }
+}
@@ -0,0 +1,180 @@
+package tools;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Runs many independent pull sessions ("trials") in parallel on a fork-join pool.
+ * Every trial starts from a fresh pity state and does the same number of pulls;
+ * the per-trial results are folded into a single {@link batchResult}.
+ *
+ * Each leaf task owns its own {@link pullEngine} and a split of the random source,
+ * so worker threads share nothing while pulling. Tasks are always split the same way,
+ * so a run started from a seeded generator is reproducible regardless of thread timing.
+ */
+public class pullBatch extends RecursiveTask<batchResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    // Trials per leaf task; large enough to amortize the fork overhead
+    private static final long LEAF_TRIALS = 4096;
+
+    private final long trials;
+    private final int pullsPerTrial;
+    private final transient SplittableGenerator random;
+
+    // Use the skip-ahead sampler (pullEngine.pullTurbo) instead of one pullOne() per pull
+    private final boolean turbo;
+
+    // Pity curves and 50-50 chance of the simulated banner
+    private final transient pityTable table;
+
+    private pullBatch(long trials, int pullsPerTrial, SplittableGenerator random, boolean turbo, pityTable table) {
+        this.trials = trials;
+        this.pullsPerTrial = pullsPerTrial;
+        this.random = random;
+        this.turbo = turbo;
+        this.table = table;
+    }
+
+    /**
+     * Simulates {@code trials} independent sessions of {@code pullsPerTrial} pulls each,
+     * using all cores of the common fork-join pool.
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial) {
+        return simulateMany(trials, pullsPerTrial, new SplittableRandom());
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int)}, but reproducible: the same seed
+     * always gives the same result.
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial, long seed) {
+        return simulateMany(trials, pullsPerTrial, new SplittableRandom(seed));
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int)}, but draws from the given generator
+     * (e.g. {@code RandomGenerator.of("L64X128MixRandom")}); every leaf task gets its own split.
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial, SplittableGenerator random) {
+        return simulateMany(trials, pullsPerTrial, random, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int, SplittableGenerator)}, but runs on the given pool.
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial, SplittableGenerator random,
+                                           ForkJoinPool pool) {
+        return simulateMany(trials, pullsPerTrial, random, false, pool);
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int, long)}, but uses the skip-ahead sampler:
+     * the 3★ between rare pulls are skipped in bulk. Statistically identical, with far
+     * fewer random draws, but not the same sequence as the per-pull mode for a given seed.
+     */
+    public static batchResult simulateManyTurbo(long trials, int pullsPerTrial, long seed) {
+        return simulateMany(trials, pullsPerTrial, new SplittableRandom(seed), true, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int, SplittableGenerator, boolean, pityTable, ForkJoinPool)}
+     * with the default banner ({@link pityTable#DEFAULT}).
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial, SplittableGenerator random,
+                                           boolean turbo, ForkJoinPool pool) {
+        return simulateMany(trials, pullsPerTrial, random, turbo, pityTable.DEFAULT, pool);
+    }
+
+    /**
+     * Most general form of the batch run.
+     *
+     * @param turbo true to use the skip-ahead sampler, false for one draw per pull
+     * @param table pity curves and 50-50 chance of the banner to simulate
+     */
+    public static batchResult simulateMany(long trials, int pullsPerTrial, SplittableGenerator random,
+                                           boolean turbo, pityTable table, ForkJoinPool pool) {
+        if (trials < 0 || pullsPerTrial < 0) {
+            throw new IllegalArgumentException("trials and pullsPerTrial must not be negative");
+        }
+        long start = System.nanoTime();
+        batchResult result = pool.invoke(new pullBatch(trials, pullsPerTrial, random, turbo, table));
+        simMetrics.GLOBAL.recordLatency(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    protected batchResult compute() {
+        if (trials <= LEAF_TRIALS) {
+            return runTrials();
+        }
+
+        long half = trials / 2;
+        pullBatch left = new pullBatch(half, pullsPerTrial, random.split(), turbo, table);
+        pullBatch right = new pullBatch(trials - half, pullsPerTrial, random, turbo, table);
+        left.fork();
+
+        batchResult result = right.compute();
+        result.merge(left.join());
+        return result;
+    }
+
+    /**
+     * Runs this task's trials sequentially on the current thread.
+     */
+    private batchResult runTrials() {
+        batchResult result = new batchResult();
+        pullEngine engine = new pullEngine(random, table);
+        trialRecorder recorder = new trialRecorder(result);
+
+        for (long t = 0; t < trials; t++) {
+            engine.reset();
+            recorder.sinceFeatured = 0;
+
+            if (turbo) {
+                engine.pullTurbo(pullsPerTrial, recorder);
+            } else {
+                engine.pull(pullsPerTrial, recorder);
+            }
+            result.recordTrial(recorder.sinceFeatured > 0);
+        }
+        // Once per leaf task, so the trial loop itself records nothing
+        simMetrics.GLOBAL.recordPulls(trials * pullsPerTrial, engine.getDraws());
+        return result;
+    }
+
+    /**
+     * Folds the pulls of one trial into a batchResult, tracking the distance between featured 5★.
+     */
+    private static class trialRecorder implements pullListener {
+        private final batchResult result;
+        private final pityHistogram pity;
+        int sinceFeatured;
+
+        trialRecorder(batchResult result) {
+            this.result = result;
+            this.pity = result.pity();
+        }
+
+        @Override
+        public void onPull(int pull, int pity5, int pity4, int fiftyFifty) {
+            result.record(pull);
+            pity.onPull(pull, pity5, pity4, fiftyFifty);
+            sinceFeatured++;
+            if (pull == pullEngine.RESULT_UP5) {
+                result.recordFeatured(sinceFeatured);
+                sinceFeatured = 0;
+            }
+        }
+
+        @Override
+        public void onThrees(int count, int pity5, int pity4) {
+            result.recordThrees(count);
+            pity.onThrees(count, pity5, pity4);
+            sinceFeatured += count;
+        }
+    }
+}
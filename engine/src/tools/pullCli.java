@@ -0,0 +1,250 @@
+package tools;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command-line batch simulator. Runs {@link pullBatch} and streams summaries to stdout
+ * as CSV or JSON lines, so it can be used in shell pipelines and cron jobs.
+ * Uses only engine classes; AWT/Swing is never initialized.
+ *
+ * The run can be split into chunks: every chunk prints its own row as soon as it is done,
+ * followed by a "total" row. Chunks draw from consecutive splits of the seeded generator,
+ * so the same arguments always print the same output.
+ *
+ * Run with: java -cp engine.jar tools.pullCli [options]  (see {@link #USAGE})
+ */
+public final class pullCli {
+
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: pullCli [options]",
+            "  --trials N          number of simulated players (default 10000)",
+            "  --pulls N           pulls per player (default 160)",
+            "  --seed S            random seed (default: random, printed in the output)",
+            "  --banner B          character (50-50 on 5-star) or weapon (5-star always featured); default character",
+            "  --featured-rate R   chance to win the 50-50, overrides --banner (0..1)",
+            "  --format F          csv or json (one object per line); default csv",
+            "  --chunks K          print a row after each of K chunks, then the total (default 1)",
+            "  --turbo             use the skip-ahead sampler (faster, same distribution)",
+            "  --help              show this text");
+
+    // Exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_USAGE = 2;
+
+    private static final String[] COLUMNS = {
+            "chunk", "trials", "pulls", "seed", "banner", "featuredRate",
+            "count3", "count4", "count5", "countUp5", "featuredPerTrial",
+            "meanPullsToFeatured", "unresolvedTrials"
+    };
+
+    // Options that take a value
+    private static final Set<String> VALUE_OPTIONS = Set.of(
+            "--trials", "--pulls", "--seed", "--banner", "--featured-rate", "--format", "--chunks");
+
+    private long trials = 10_000;
+    private int pulls = 160;
+    private long seed = new SplittableRandom().nextLong();
+    private String banner = "character";
+    private double featuredRate = Double.NaN;
+    private boolean json;
+    private int chunks = 1;
+    private boolean turbo;
+
+    private pullCli() {
+    }
+
+    public static void main(String[] args) {
+        int code = run(args, System.out, System.err);
+        if (code != EXIT_OK) {
+            System.exit(code);
+        }
+    }
+
+    /**
+     * Parses the arguments, runs the simulation and writes the summaries to {@code out}.
+     * Errors and usage go to {@code err}.
+     *
+     * @return EXIT_OK, or EXIT_USAGE if the arguments are invalid or out of range
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        pullCli cli = new pullCli();
+        try {
+            if (!cli.parse(args)) {
+                out.println(USAGE);
+                return EXIT_OK;
+            }
+            cli.simulate(out);
+        } catch (IllegalArgumentException e) {
+            err.println("pullCli: " + e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * @return false if only the usage text was requested
+     */
+    private boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                return false;
+            }
+            if (option.equals("--turbo")) {
+                turbo = true;
+                continue;
+            }
+            if (!VALUE_OPTIONS.contains(option)) {
+                throw new IllegalArgumentException("unknown option: " + option);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--trials":
+                    trials = parseLong(option, value, 1, Long.MAX_VALUE);
+                    break;
+                case "--pulls":
+                    pulls = (int) parseLong(option, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "--seed":
+                    seed = parseLong(option, value, Long.MIN_VALUE, Long.MAX_VALUE);
+                    break;
+                case "--banner":
+                    banner = value.toLowerCase(Locale.ROOT);
+                    if (!banner.equals("character") && !banner.equals("weapon")) {
+                        throw new IllegalArgumentException("unknown banner: " + value);
+                    }
+                    break;
+                case "--featured-rate":
+                    try {
+                        featuredRate = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--featured-rate is not a number: " + value);
+                    }
+                    if (!(featuredRate >= 0.0 && featuredRate <= 1.0)) {
+                        throw new IllegalArgumentException("--featured-rate must be between 0 and 1: " + value);
+                    }
+                    break;
+                case "--format":
+                    if (value.equalsIgnoreCase("json")) {
+                        json = true;
+                    } else if (value.equalsIgnoreCase("csv")) {
+                        json = false;
+                    } else {
+                        throw new IllegalArgumentException("unknown format: " + value);
+                    }
+                    break;
+                case "--chunks":
+                    chunks = (int) parseLong(option, value, 1, 1_000_000);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + option);
+            }
+        }
+        if (Double.isNaN(featuredRate)) {
+            featuredRate = banner.equals("weapon") ? 1.0 : pullEngine.BASE_FEATURED_RATE;
+        }
+        try {
+            // Every count of the run, up to the total number of pulls, must fit in a long
+            Math.multiplyExact(trials, (long) pulls);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("--trials times --pulls must not exceed " + Long.MAX_VALUE);
+        }
+        if (chunks > trials) {
+            chunks = (int) trials;
+        }
+        return true;
+    }
+
+    private static long parseLong(String option, String value, long min, long max) {
+        long parsed;
+        try {
+            parsed = Long.parseLong(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " is not a number: " + value);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(option + " must be between " + min + " and " + max + ": " + value);
+        }
+        return parsed;
+    }
+
+    private void simulate(PrintStream out) {
+        pityTable table = pityTable.withFeaturedRate(featuredRate);
+        SplittableRandom root = new SplittableRandom(seed);
+
+        if (!json) {
+            out.println(String.join(",", COLUMNS));
+        }
+
+        batchResult total = new batchResult();
+        long done = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            // trials * (chunk + 1) / chunks, without overflowing for large trial counts
+            long chunkTrials = (trials / chunks) * (chunk + 1) + (trials % chunks) * (chunk + 1) / chunks - done;
+            batchResult result = pullBatch.simulateMany(chunkTrials, pulls, root.split(), turbo, table,
+                    ForkJoinPool.commonPool());
+            done += chunkTrials;
+            total.merge(result);
+            if (chunks > 1) {
+                printRow(out, String.valueOf(chunk + 1), result);
+            }
+        }
+        printRow(out, "total", total);
+    }
+
+    private void printRow(PrintStream out, String chunk, batchResult result) {
+        Object[] values = {
+                chunk, result.getTrials(), pulls, seed, banner, featuredRate,
+                result.getCount3(), result.getCount4(), result.getCount5(), result.getCountUp5(),
+                (result.getTrials() == 0) ? 0.0 : (double) result.getCountUp5() / result.getTrials(),
+                meanPullsToFeatured(result.getPullsToFeatured()), result.getUnresolvedTrials()
+        };
+
+        StringBuilder line = new StringBuilder(256);
+        if (json) {
+            line.append('{');
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(COLUMNS[i]).append("\":");
+                if (values[i] instanceof String) {
+                    line.append('"').append(values[i]).append('"');
+                } else {
+                    line.append(values[i]);
+                }
+            }
+            line.append('}');
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(values[i]);
+            }
+        }
+        out.println(line);
+        out.flush();
+    }
+
+    /**
+     * Mean of the pulls-to-featured histogram, or 0 if no featured 5★ was pulled.
+     */
+    private static double meanPullsToFeatured(long[] histogram) {
+        long count = 0;
+        double sum = 0;
+        for (int k = 1; k < histogram.length; k++) {
+            count += histogram[k];
+            sum += (double) k * histogram[k];
+        }
+        return (count == 0) ? 0.0 : sum / count;
+    }
+}
@@ -0,0 +1,67 @@
+package tools;
+
+import java.util.Arrays;
+
+/**
+ * Fans pull events out to any number of subscribers, in subscription order.
+ *
+ * Subscribers are kept in an array that is replaced on every change, so dispatching never
+ * allocates or locks. The array is read once per event: a listener added or removed while a
+ * batch is running takes effect from the next event of that batch, and an event that is
+ * already being dispatched still reaches the listeners it started with.
+ */
+public class pullDispatcher implements pullListener {
+
+    private volatile pullListener[] listeners = new pullListener[0];
+
+    public synchronized void add(pullListener listener) {
+        pullListener[] current = listeners;
+        pullListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized void remove(pullListener listener) {
+        pullListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                pullListener[] next = new pullListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts {@code next} in the place of {@code old}, so it is called in the same order;
+     * adds it at the end if {@code old} is not subscribed.
+     */
+    public synchronized void replace(pullListener old, pullListener next) {
+        pullListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == old) {
+                pullListener[] copy = current.clone();
+                copy[i] = next;
+                listeners = copy;
+                return;
+            }
+        }
+        add(next);
+    }
+
+    @Override
+    public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+        for (pullListener listener : listeners) {
+            listener.onPull(result, pity5, pity4, fiftyFifty);
+        }
+    }
+
+    @Override
+    public void onThrees(int count, int pity5, int pity4) {
+        for (pullListener listener : listeners) {
+            listener.onThrees(count, pity5, pity4);
+        }
+    }
+}
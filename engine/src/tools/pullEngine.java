@@ -0,0 +1,279 @@
+package tools;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The pullEngine class holds the pity state of one player and performs single pulls.
+ * It contains no UI code, so many independent copies can run side by side
+ * (e.g. one per worker thread in {@link pullBatch}).
+ *
+ * Results are encoded as small ints (RESULT_3 .. RESULT_UP5) instead of Strings;
+ * use {@link #label(int)} to get the display text ("3★", "4★", "5★", "up!5★").
+ */
+public class pullEngine {
+
+    // Result codes, ordered by rarity
+    public static final int RESULT_3 = 0;
+    public static final int RESULT_4 = 1;
+    public static final int RESULT_5 = 2;
+    public static final int RESULT_UP5 = 3;
+
+    // 50-50 outcome of a pull, as reported to pullListener
+    public static final int FIFTY_NONE = 0;         // not a 5★
+    public static final int FIFTY_WON = 1;          // featured 5★ on a 50-50
+    public static final int FIFTY_LOST = 2;         // non-featured 5★
+    public static final int FIFTY_GUARANTEED = 3;   // featured 5★ after a lost 50-50
+
+    private static final String[] LABELS = {"3★", "4★", "5★", "up!5★"};
+
+    // Base rates for 4★ and 5★
+    private static final double BASE_4_RATE = 0.085;
+    private static final double BASE_5_RATE = 0.008;
+
+    // Chance to win the 50-50 when the next 5★ is not guaranteed
+    public static final double BASE_FEATURED_RATE = 0.5;
+
+    // Pity counters and featured guarantee, with the pull rules shared with pityState
+    private final cursor state = new cursor();
+
+    // Random source for this engine; never shared between threads
+    private final RandomGenerator random;
+
+    // Precomputed pity thresholds used by pullOne()
+    private final pityTable table;
+
+    // Random numbers drawn so far; a plain field, read by batch callers for simMetrics
+    private long draws;
+
+    /**
+     * Creates an engine with zeroed counters and a reproducible random source.
+     * Two engines created with the same seed produce the same pulls.
+     */
+    public pullEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates an engine with zeroed counters that draws from the given random source.
+     * Any {@link RandomGenerator} works (SplittableRandom, L64X128MixRandom, Xoshiro256PlusPlus, ...);
+     * it is used from one thread at a time, so it does not need to be thread-safe.
+     */
+    public pullEngine(RandomGenerator random) {
+        this(random, pityTable.DEFAULT);
+    }
+
+    /**
+     * Creates an engine with zeroed counters that uses the given pity table.
+     */
+    public pullEngine(RandomGenerator random, pityTable table) {
+        this.random = random;
+        this.table = table;
+    }
+
+    /**
+     * Calculates the 5★ probability for a given 5★ pity counter ("soft pity").
+     */
+    public static double get5Rate(int counter5) {
+        if (counter5 <= 65) {
+            return BASE_5_RATE;
+        } else if (counter5 < 76) {
+            // from 66 to 75
+            double rate = BASE_5_RATE + 0.08 * (counter5 - 65);
+            return Math.min(1.0, rate);
+        } else if (counter5 < 79) {
+            // from 76 to 78
+            // 0.8 = 0.08 * (75 - 65) is the total increment from the previous range
+            double rate = BASE_5_RATE + 0.8 + 0.1 * (counter5 - 75);
+            return Math.min(1.0, rate);
+        } else {
+            // Pull #79 guaranteed
+            return 1.0;
+        }
+    }
+
+    /**
+     * Calculates the 4★ probability for a given 4★ pity counter ("hard pity").
+     */
+    public static double get4Rate(int counter4) {
+        // If we are at 9 consecutive misses, then the next (10th) is forced 4★ if not 5★
+        return (counter4 < 9) ? BASE_4_RATE : 1.0;
+    }
+
+    /**
+     * Calculates the current 5★ probability of this engine.
+     */
+    public double get5Rate() {
+        return table.get5Rate(state.counter5);
+    }
+
+    /**
+     * Calculates the current 4★ probability of this engine.
+     */
+    public double get4Rate() {
+        return get4Rate(state.counter4);
+    }
+
+    /**
+     * Performs one pull and updates the pity state.
+     * The rate curves are looked up in the {@link pityTable} rather than recomputed.
+     *
+     * @return one of RESULT_3, RESULT_4, RESULT_5, RESULT_UP5
+     */
+    public int pullOne() {
+        return state.pullOne(table);
+    }
+
+    /**
+     * Performs {@code pulls} pulls and reports each one to the listener,
+     * together with its pity positions and 50-50 outcome.
+     */
+    public void pull(long pulls, pullListener listener) {
+        for (long i = 0; i < pulls; i++) {
+            int pity5 = state.counter5 + 1;
+            int pity4 = state.counter4 + 1;
+            boolean wasGuaranteed = state.guaranteed;
+
+            int result = state.pullOne(table);
+            listener.onPull(result, pity5, pity4, pityCursor.fiftyFifty(result, wasGuaranteed));
+        }
+    }
+
+    /**
+     * Performs {@code pulls} pulls in skip-ahead ("turbo") mode.
+     *
+     * Instead of one draw per pull, one draw picks how many pulls it takes to reach the next
+     * 4★/5★ (from the precomputed run-length CDF), a second decides 4★ vs 5★, and a third
+     * the 50-50 if needed. The counters are advanced over the 3★ in bulk and the run is
+     * reported through {@link pullListener#onThrees}. The resulting sequence has exactly the
+     * same distribution as calling {@link #pullOne()} repeatedly.
+     */
+    public void pullTurbo(long pulls, pullListener listener) {
+        long remaining = pulls;
+
+        while (remaining > 0) {
+            int run = table.runLength(state.counter5, state.counter4, state.draw());
+
+            // If the batch ends inside the run, only 3★ are left. Resampling from the
+            // advanced state on the next call is exact because the chain is Markov.
+            int count3 = (int) Math.min(run - 1, remaining);
+            if (count3 > 0) {
+                listener.onThrees(count3, state.counter5 + 1, state.counter4 + 1);
+                state.counter4 += count3;
+                state.counter5 += count3;
+                remaining -= count3;
+            }
+            if (remaining == 0) {
+                return;
+            }
+
+            int pity5 = state.counter5 + 1;
+            int pity4 = state.counter4 + 1;
+            boolean wasGuaranteed = state.guaranteed;
+            int result = state.pullRare(table);
+            listener.onPull(result, pity5, pity4, pityCursor.fiftyFifty(result, wasGuaranteed));
+            remaining--;
+        }
+    }
+
+    /**
+     * Resets pity counters and featured rate to their initial values.
+     */
+    public void reset() {
+        state.counter4 = 0;
+        state.counter5 = 0;
+        state.guaranteed = false;
+    }
+
+    /**
+     * Sets the pity state directly, e.g. when continuing a saved session.
+     */
+    public void restore(int counter4, int counter5, boolean guaranteed) {
+        if (counter4 < 0 || counter4 >= pityTable.COUNTER_4_SIZE
+                || counter5 < 0 || counter5 >= pityTable.COUNTER_5_SIZE) {
+            throw new IllegalArgumentException("Pity counters out of range: " + counter4 + ", " + counter5);
+        }
+        state.counter4 = counter4;
+        state.counter5 = counter5;
+        state.guaranteed = guaranteed;
+    }
+
+    /**
+     * Sets the pity state to where it was at the end of the given results,
+     * as if they had all been pulled with this engine. Only looks at the tail of the store.
+     */
+    public void resumeFrom(pullStore results) {
+        int c4 = -1;
+        int c5 = -1;
+        boolean lostLast = false;
+
+        long index = results.size() - 1;
+        for (int back = 0; index >= 0 && back < pityTable.COUNTER_5_SIZE; back++, index--) {
+            int result = results.get(index);
+            if (c4 < 0 && result != RESULT_3) {
+                c4 = back;
+            }
+            if (result >= RESULT_5) {
+                c5 = back;
+                lostLast = (result == RESULT_5);
+                break;
+            }
+        }
+
+        // No 5★ (or 4★) found: every result counts towards pity
+        long size = results.size();
+        if (c5 < 0) {
+            c5 = (int) Math.min(size, pityTable.COUNTER_5_SIZE - 1);
+        }
+        if (c4 < 0) {
+            c4 = (int) Math.min(size, pityTable.COUNTER_4_SIZE - 1);
+        }
+        restore(Math.min(c4, pityTable.COUNTER_4_SIZE - 1), c5, lostLast);
+    }
+
+    /**
+     * Number of random numbers this engine has drawn. Callers take the difference around a
+     * batch to report it to {@link simMetrics}.
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    public RandomGenerator getRandom() {
+        return random;
+    }
+
+    public int getCounter4() {
+        return state.counter4;
+    }
+
+    public int getCounter5() {
+        return state.counter5;
+    }
+
+    public double getFeaturedRate() {
+        return state.guaranteed ? 1.0 : table.getFeaturedRate();
+    }
+
+    public boolean isGuaranteed() {
+        return state.guaranteed;
+    }
+
+    /**
+     * Returns the display text for a result code.
+     */
+    public static String label(int result) {
+        return LABELS[result];
+    }
+
+    /**
+     * The engine's pity state, drawing from its random source.
+     */
+    private final class cursor extends pityCursor {
+        @Override
+        long draw() {
+            draws++;
+            return pityTable.draw(random.nextLong());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package tools;
+
+import java.util.Arrays;
+
+/**
+ * Compact, append-only store of pull results.
+ *
+ * Every result code (RESULT_3 .. RESULT_UP5 from {@link pullEngine}) fits in 2 bits,
+ * so 32 pulls are packed into each long. 10M pulls take about 2.5 MB instead of
+ * one object reference per pull.
+ *
+ * The {@link #asList()} view decodes entries on demand for code that still works with
+ * the display Strings ("3★", "4★", ...).
+ */
+public class pullHistory implements pullStore {
+
+    private static final int BITS = 2;
+    private static final int PER_WORD = Long.SIZE / BITS;   // 32 results per long
+    private static final long MASK = (1L << BITS) - 1;
+    private static final int INITIAL_WORDS = 16;
+
+    private long[] words = new long[INITIAL_WORDS];
+    private long size;
+
+    public pullHistory() {
+    }
+
+    /**
+     * Wraps already packed results, e.g. read back from a {@link sessionSnapshot}.
+     * Storage past {@code size} must be zero, since {@link #add} and {@link #addThrees}
+     * rely on unused bits reading as RESULT_3.
+     */
+    pullHistory(long[] words, long size) {
+        if (size < 0 || size > (long) words.length * PER_WORD) {
+            throw new IllegalArgumentException("size " + size + " does not fit in " + words.length + " words");
+        }
+        int used = (int) (size / PER_WORD);
+        int tailBits = (int) (size % PER_WORD) * BITS;
+        for (int i = used; i < words.length; i++) {
+            long unused = (i == used) ? words[i] >>> tailBits : words[i];
+            if (unused != 0) {
+                throw new IllegalArgumentException("bits set past size " + size + " in word " + i);
+            }
+        }
+        this.words = (words.length == 0) ? new long[INITIAL_WORDS] : words;
+        this.size = size;
+    }
+
+    /**
+     * Appends one result code. Amortized O(1).
+     */
+    public void add(int result) {
+        int word = (int) (size / PER_WORD);
+        if (word == words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int shift = (int) (size % PER_WORD) * BITS;
+        words[word] |= ((long) result & MASK) << shift;
+        size++;
+    }
+
+    /**
+     * Appends {@code count} 3★ results. RESULT_3 is encoded as 0 and unused storage is zeroed,
+     * so this only has to grow the array and move the end; O(1) amortized per call.
+     */
+    public void addThrees(long count) {
+        long newSize = size + count;
+        int neededWords = (int) ((newSize + PER_WORD - 1) / PER_WORD);
+        if (neededWords > words.length) {
+            words = Arrays.copyOf(words, Math.max(neededWords, words.length * 2));
+        }
+        size = newSize;
+    }
+
+    @Override
+    public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+        add(result);
+    }
+
+    @Override
+    public void onThrees(int count, int pity5, int pity4) {
+        addThrees(count);
+    }
+
+    /**
+     * Returns the result code at the given position.
+     */
+    @Override
+    public int get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int shift = (int) (index % PER_WORD) * BITS;
+        return (int) ((words[(int) (index / PER_WORD)] >>> shift) & MASK);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries and releases the grown storage.
+     */
+    @Override
+    public void clear() {
+        words = new long[INITIAL_WORDS];
+        size = 0;
+    }
+
+    /**
+     * Copies only the words in use, one block copy.
+     */
+    @Override
+    public pullHistory copy() {
+        return new pullHistory(Arrays.copyOf(words, usedWords()), size);
+    }
+
+    /**
+     * Number of words in use; together with {@link #words()} the packed form of the history.
+     */
+    int usedWords() {
+        return (int) ((size + PER_WORD - 1) / PER_WORD);
+    }
+
+    /**
+     * The packed storage itself (not a copy); only the first {@link #usedWords()} are meaningful.
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Returns the number of bytes currently reserved for packed results.
+     */
+    @Override
+    public long capacityBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,33 @@
+package tools;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Lazily decoding list view over a range of a {@link pullStore}.
+ */
+class pullLabelView extends AbstractList<String> implements RandomAccess {
+    private final pullStore store;
+    private final long from;
+    private final long to;
+
+    pullLabelView(pullStore store, long from, long to) {
+        this.store = store;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return pullEngine.label(store.get(from + index));
+    }
+
+    @Override
+    public int size() {
+        long end = (to < 0) ? store.size() : Math.min(to, store.size());
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, end - from));
+    }
+}
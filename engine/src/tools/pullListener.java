@@ -0,0 +1,33 @@
+package tools;
+
+/**
+ * Receives pull events from {@link pullEngine} as they happen.
+ *
+ * Events are plain ints, so a batch flows through every subscriber (history, stats,
+ * analysis, UI, persistence) without intermediate lists or per-pull String allocation.
+ */
+public interface pullListener {
+
+    /**
+     * Called once per pull.
+     *
+     * @param result     RESULT_3, RESULT_4, RESULT_5 or RESULT_UP5 (see {@link pullEngine})
+     * @param pity5      position of this pull since the last 5★ (1 = first pull after it)
+     * @param pity4      position of this pull since the last 4★ or 5★
+     * @param fiftyFifty for 5★: FIFTY_WON, FIFTY_LOST or FIFTY_GUARANTEED; otherwise FIFTY_NONE
+     */
+    void onPull(int result, int pity5, int pity4, int fiftyFifty);
+
+    /**
+     * Called for a run of {@code count} consecutive 3★ pulls, e.g. by the skip-ahead sampler.
+     * The first pull of the run has the given pity positions; each following one is one higher.
+     *
+     * The default reports every pull to {@link #onPull}; listeners that can handle
+     * a run in one go (history, stats) override it.
+     */
+    default void onThrees(int count, int pity5, int pity4) {
+        for (int i = 0; i < count; i++) {
+            onPull(pullEngine.RESULT_3, pity5 + i, pity4 + i, pullEngine.FIFTY_NONE);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only pull history on disk, accessed through a memory-mapped file.
+ *
+ * File layout (little endian):
+ *   0  int   magic "WWPL"
+ *   4  int   format version
+ *   8  long  number of pulls stored
+ *   16 long  generation, incremented by every {@link #clear()}
+ *   24 ..    reserved, header is HEADER_SIZE bytes
+ *   HEADER_SIZE ..  results, 2 bits each, 4 per byte (first pull in the lowest bits)
+ *
+ * The file grows in CHUNK_SIZE steps. Opening an existing log only maps the file and reads
+ * the header, so load time does not depend on its length, and results are read straight
+ * from the mapping instead of being copied to the heap.
+ *
+ * The pull count in the header is written after the results of every append, so the file
+ * is consistent at any point; call {@link #flush()} to force it to the storage device.
+ *
+ * Running statistics over the log are kept in a {@link pullLogCheckpoint} next to it, so a
+ * reopened log does not have to be read from the start.
+ */
+public class pullLog implements pullStore, Closeable {
+
+    private static final int MAGIC = 0x4C505757;   // "WWPL" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 8;
+    private static final int GENERATION_OFFSET = 16;
+    private static final long CHUNK_SIZE = 4L << 20;   // 4 MB = 16M pulls
+
+    private static final int PER_BYTE = 4;
+
+    private static final int MASK = 0b11;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long size;
+
+    private pullLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the log at the given path, creating an empty one if the file does not exist.
+     *
+     * @throws IOException if the file cannot be opened or is not a pull log
+     */
+    public static pullLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        pullLog log = new pullLog(path, channel);
+        try {
+            log.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return log;
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            map(HEADER_SIZE + CHUNK_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(COUNT_OFFSET, 0);
+            return;
+        }
+
+        if (fileSize < HEADER_SIZE) {
+            throw new IOException("Not a pull log (file too short): " + path);
+        }
+        map(fileSize);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a pull log (bad magic): " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported pull log version " + buffer.getInt(4) + ": " + path);
+        }
+        size = buffer.getLong(COUNT_OFFSET);
+        if (size < 0 || byteOffset(size) > fileSize) {
+            throw new IOException("Corrupt pull log (count " + size + " exceeds file): " + path);
+        }
+
+        // A crash between writing a result and its count can leave stray bits after the end
+        int shift = (int) (size % PER_BYTE) * 2;
+        int offset = (int) byteOffset(size);
+        if (offset < buffer.capacity()) {
+            buffer.put(offset, (byte) (buffer.get(offset) & ((1 << shift) - 1)));
+        }
+    }
+
+    /**
+     * Maps the first {@code bytes} bytes of the file, growing the file if needed.
+     * Newly added space is cleared explicitly, because 3★ runs rely on zeroed storage.
+     */
+    private void map(long bytes) throws IOException {
+        long oldSize = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        for (long i = oldSize; i < bytes; i++) {
+            buffer.put((int) i, (byte) 0);
+        }
+    }
+
+    private static long byteOffset(long index) {
+        return HEADER_SIZE + index / PER_BYTE;
+    }
+
+    /**
+     * Makes sure the mapping can hold {@code count} results, growing it by whole chunks.
+     */
+    private void ensureCapacity(long count) {
+        long needed = byteOffset(count) + 1;
+        if (needed <= buffer.capacity()) {
+            return;
+        }
+        long chunks = (needed - HEADER_SIZE + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long bytes = HEADER_SIZE + chunks * CHUNK_SIZE;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Pull log is full (" + size + " pulls): " + path);
+        }
+        try {
+            map(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow pull log " + path, e);
+        }
+    }
+
+    /**
+     * Appends one result code.
+     */
+    public void add(int result) {
+        ensureCapacity(size + 1);
+        int offset = (int) byteOffset(size);
+        int shift = (int) (size % PER_BYTE) * 2;
+        byte old = buffer.get(offset);
+        buffer.put(offset, (byte) ((old & ~(MASK << shift)) | ((result & MASK) << shift)));
+        size++;
+        buffer.putLong(COUNT_OFFSET, size);
+    }
+
+    /**
+     * Appends {@code count} 3★ results. Storage past the end is always zero (RESULT_3),
+     * so only the count has to move.
+     */
+    public void addThrees(long count) {
+        ensureCapacity(size + count);
+        size += count;
+        buffer.putLong(COUNT_OFFSET, size);
+    }
+
+    @Override
+    public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+        add(result);
+    }
+
+    @Override
+    public void onThrees(int count, int pity5, int pity4) {
+        addThrees(count);
+    }
+
+    @Override
+    public int get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int shift = (int) (index % PER_BYTE) * 2;
+        return (buffer.get((int) byteOffset(index)) >>> shift) & MASK;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Copies the results to the heap in bulk. The byte layout of the log is the little-endian
+     * form of {@link pullHistory}'s words, so whole words are copied as they are.
+     */
+    @Override
+    public pullHistory copy() {
+        int bytes = (int) ((size + PER_BYTE - 1) / PER_BYTE);
+        long[] words = new long[(bytes + Long.BYTES - 1) / Long.BYTES];
+        ByteBuffer data = buffer.slice(HEADER_SIZE, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int whole = bytes / Long.BYTES;
+        data.asLongBuffer().get(words, 0, whole);
+        for (int i = whole * Long.BYTES; i < bytes; i++) {
+            words[whole] |= (data.get(i) & 0xFFL) << ((i % Long.BYTES) * 8);
+        }
+        return new pullHistory(words, size);
+    }
+
+    /**
+     * Removes all results. The file keeps its current length, but the data area is cleared.
+     * Bumps the generation, which invalidates checkpoints taken before.
+     */
+    @Override
+    public void clear() {
+        long used = byteOffset(size) + 1;
+        for (int i = HEADER_SIZE; i < used && i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        size = 0;
+        buffer.putLong(COUNT_OFFSET, 0);
+        buffer.putLong(GENERATION_OFFSET, getGeneration() + 1);
+    }
+
+    /**
+     * Number of times the log has been cleared (0 for logs written before generations existed).
+     */
+    public long getGeneration() {
+        return buffer.getLong(GENERATION_OFFSET);
+    }
+
+    /**
+     * Writes all changes through to the storage device.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the size of the mapped part of the file.
+     */
+    @Override
+    public long capacityBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
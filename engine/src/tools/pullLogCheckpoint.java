@@ -0,0 +1,131 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Running statistics and pity histogram of a {@link pullLog} up to some position, saved in a
+ * small file next to the log ({@code <log>.stats}). Reopening a log then only replays the
+ * results after that position instead of reading the whole log twice.
+ *
+ * File layout (little endian):
+ *   int   magic "WWPC", int version
+ *   long  log generation (see {@link pullLog#getGeneration()}), long pulls covered
+ *   long  the last (up to) 32 covered results, 2 bits each
+ *   ...   pullStats state (pullStats.BYTES)
+ *   ...   pityHistogram state (pityHistogram.BYTES)
+ *
+ * A checkpoint is only used if it matches the log: same generation, no more pulls than the
+ * log holds, and the same results just before its position. Anything else (no file, another
+ * format, a log cleared or replaced since) falls back to reading the whole log.
+ */
+final class pullLogCheckpoint {
+
+    private static final int MAGIC = 0x43505757;   // "WWPC" read as a little-endian int
+    private static final int VERSION = 1;
+
+    private static final int ANCHOR_PULLS = 32;
+    private static final int SIZE = 4 + 4 + 8 + 8 + 8 + pullStats.BYTES + pityHistogram.BYTES;
+
+    private pullLogCheckpoint() {
+    }
+
+    /**
+     * The checkpoint file of the log at the given path.
+     */
+    static Path pathOf(Path log) {
+        return log.resolveSibling(log.getFileName() + ".stats");
+    }
+
+    /**
+     * Saves the statistics of the whole log. The file is written next to the target and then
+     * moved over it, so an existing checkpoint is never left half-written.
+     */
+    static void save(pullLog log, pullStats stats, pityHistogram pity) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putLong(log.getGeneration()).putLong(log.size());
+        out.putLong(anchor(log, log.size()));
+        stats.write(out);
+        pity.write(out);
+        out.flip();
+
+        Path path = pathOf(log.getPath());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Fills {@code stats} and {@code pity} (which must be empty) with the statistics of the
+     * whole log: from its checkpoint plus the results after it if there is a usable one,
+     * otherwise from every result.
+     *
+     * @return the number of results that were read from the log
+     */
+    static long restore(pullLog log, pullStats stats, pityHistogram pity) {
+        long from = load(log, stats, pity);
+        if (from < 0) {
+            stats.reset();
+            pity.clear();
+            from = 0;
+        }
+        long size = log.size();
+        for (long i = from; i < size; i++) {
+            stats.record(log.get(i));
+        }
+        pity.replay(log, from);
+        return size - from;
+    }
+
+    /**
+     * Reads the checkpoint into {@code stats} and {@code pity}.
+     *
+     * @return the position it covers, or -1 if there is no checkpoint that matches the log
+     */
+    private static long load(pullLog log, pullStats stats, pityHistogram pity) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(pathOf(log.getPath()));
+        } catch (NoSuchFileException e) {
+            return -1;
+        } catch (IOException e) {
+            System.err.println("pullLog: ignoring unreadable checkpoint: " + e);
+            return -1;
+        }
+        if (data.length != SIZE) {
+            return -1;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return -1;
+        }
+        long generation = in.getLong();
+        long position = in.getLong();
+        long anchor = in.getLong();
+        if (generation != log.getGeneration() || position < 0 || position > log.size()
+                || anchor != anchor(log, position)) {
+            return -1;
+        }
+        stats.read(in);
+        pity.read(in);
+        return position;
+    }
+
+    /**
+     * The last (up to) ANCHOR_PULLS results before {@code position}, 2 bits each.
+     */
+    private static long anchor(pullStore log, long position) {
+        long bits = 0;
+        for (long i = Math.max(0, position - ANCHOR_PULLS); i < position; i++) {
+            bits = (bits << 2) | log.get(i);
+        }
+        return bits;
+    }
+}
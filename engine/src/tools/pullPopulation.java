@@ -0,0 +1,199 @@
+package tools;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates a whole population of independent players at once.
+ *
+ * Instead of one {@link pullEngine} object per player, the pity state of all players is kept
+ * in primitive lane arrays (counter_4, counter_5, guaranteed). One step advances every player
+ * by one pull: random draws for a block of lanes are generated first, then the rate lookup,
+ * compare and counter resets ({@link pityCursor}'s rules) are applied across the block.
+ * Each lane uses a single draw per pull; the 50-50 is decided on the same draw
+ * (see {@link pityTable#thresholdUp5(int)}).
+ * Blocks are independent and run in parallel, each with its own split of the random source.
+ *
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, the compare and counter
+ * updates run on SIMD vectors ({@link pullPopulationVector}); the lanes left over at the end of a
+ * block, and every lane on JVMs without the module, take the scalar loop. Both give the same
+ * results. See {@link #VECTOR_PROPERTY} for when the vector path is used.
+ */
+public class pullPopulation {
+
+    // Lanes per block; each block is processed by one thread at a time
+    private static final int BLOCK = 4096;
+
+    /**
+     * true or false forces the Vector API path on or off; by default it is used on JDK 21 and
+     * later, where the JIT compiles its gathers and lane conversions to SIMD instructions
+     * (JDK 17 runs them through slower fallback code, about 1.5x slower than the scalar loop).
+     */
+    public static final String VECTOR_PROPERTY = "wuwa.population.vector";
+
+    /** Whether the JVM runs with the Vector API module. */
+    static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static final boolean VECTOR_DEFAULT = useVector(System.getProperty(VECTOR_PROPERTY));
+
+    private final int players;
+    private final pityTable table;
+    private final boolean vector;
+
+    // Lane arrays: one entry per player
+    private final byte[] counter4;
+    private final byte[] counter5;
+    private final byte[] guaranteed;
+
+    // Per block: random source and result counts (no sharing between blocks)
+    private final SplittableRandom[] blockRandom;
+    private final long[][] blockCounts;
+
+    /**
+     * Creates a population of players with fresh pity, reproducible from the seed.
+     */
+    public pullPopulation(int players, long seed) {
+        this(players, seed, pityTable.DEFAULT);
+    }
+
+    /**
+     * Creates a population of players with fresh pity that uses the given pity table.
+     */
+    public pullPopulation(int players, long seed, pityTable table) {
+        this(players, seed, table, VECTOR_DEFAULT);
+    }
+
+    /**
+     * @param vector whether to use the Vector API path; must be false unless it is available
+     */
+    pullPopulation(int players, long seed, pityTable table, boolean vector) {
+        if (players < 0) {
+            throw new IllegalArgumentException("players must not be negative: " + players);
+        }
+        this.players = players;
+        this.table = table;
+        this.vector = vector;
+        this.counter4 = new byte[players];
+        this.counter5 = new byte[players];
+        this.guaranteed = new byte[players];
+
+        int blocks = (players + BLOCK - 1) / BLOCK;
+        SplittableRandom root = new SplittableRandom(seed);
+        blockRandom = new SplittableRandom[blocks];
+        blockCounts = new long[blocks][4];
+        for (int b = 0; b < blocks; b++) {
+            blockRandom[b] = root.split();
+        }
+    }
+
+    private static boolean useVector(String setting) {
+        if (!VECTOR_AVAILABLE || !pullPopulationVector.isSupported()) {
+            return false;
+        }
+        return (setting == null) ? Runtime.version().feature() >= 21 : Boolean.parseBoolean(setting);
+    }
+
+    /**
+     * Advances every player by one pull.
+     */
+    public void step() {
+        step(1);
+    }
+
+    /**
+     * Advances every player by {@code pulls} pulls.
+     */
+    public void step(int pulls) {
+        IntStream.range(0, blockRandom.length).parallel().forEach(b -> stepBlock(b, pulls));
+    }
+
+    /**
+     * Runs {@code pulls} steps on the lanes of one block.
+     */
+    private void stepBlock(int block, int pulls) {
+        int from = block * BLOCK;
+        int to = Math.min(players, from + BLOCK);
+        int lanes = to - from;
+
+        SplittableRandom random = blockRandom[block];
+        long[] counts = blockCounts[block];
+        long[] draws = new long[lanes];
+
+        // Created per call: it holds gather scratch space, so it is not shared between threads
+        pullPopulationVector simd = vector ? new pullPopulationVector(table) : null;
+        int vectorLanes = (simd == null) ? 0 : lanes - lanes % simd.lanes();
+
+        for (int p = 0; p < pulls; p++) {
+            // Draw first so the lane loops below have no calls in them
+            for (int j = 0; j < lanes; j++) {
+                draws[j] = pityTable.draw(random.nextLong());
+            }
+
+            if (simd != null) {
+                simd.step(counter4, counter5, guaranteed, from, vectorLanes, draws, counts);
+            }
+            stepLanes(from, vectorLanes, lanes, draws, counts);
+        }
+    }
+
+    /**
+     * Scalar lane loop: advances lanes {@code from + start .. from + end} by one pull with the
+     * {@link pityCursor} rules and adds the results to the counts.
+     */
+    private void stepLanes(int from, int start, int end, long[] draws, long[] counts) {
+        for (int j = start; j < end; j++) {
+            int i = from + j;
+            int c5 = counter5[i];
+            int c4 = counter4[i];
+            boolean g = guaranteed[i] != 0;
+
+            // One draw per lane: a 5★ wins the 50-50 if the same draw is also below thresholdUp5
+            long u = draws[j];
+            int result;
+            if (u < table.threshold5(c5)) {
+                result = (g || u < table.thresholdUp5(c5)) ? pullEngine.RESULT_UP5 : pullEngine.RESULT_5;
+            } else {
+                result = (u < table.threshold45(c5, c4)) ? pullEngine.RESULT_4 : pullEngine.RESULT_3;
+            }
+
+            counter5[i] = (byte) pityCursor.nextCounter5(c5, result);
+            counter4[i] = (byte) pityCursor.nextCounter4(c4, result);
+            guaranteed[i] = (byte) (pityCursor.nextGuaranteed(g, result) ? 1 : 0);
+            counts[result]++;
+        }
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    /**
+     * Whether steps use the Vector API path.
+     */
+    public boolean isVectorized() {
+        return vector;
+    }
+
+    /**
+     * Total number of results of the given rarity over all players and steps.
+     */
+    public long getCount(int result) {
+        long total = 0;
+        for (long[] counts : blockCounts) {
+            total += counts[result];
+        }
+        return total;
+    }
+
+    public int getCounter4(int player) {
+        return counter4[player];
+    }
+
+    public int getCounter5(int player) {
+        return counter5[player];
+    }
+
+    public boolean isGuaranteed(int player) {
+        return guaranteed[player] != 0;
+    }
+}
@@ -0,0 +1,120 @@
+package tools;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API ({@code jdk.incubator.vector}) form of the lane loop of {@link pullPopulation}.
+ *
+ * Draws and thresholds are compared as {@link LongVector}s, the thresholds gathered from the
+ * {@link pityTable} by counter; the counters and the guarantee are widened from their byte
+ * lanes to {@link IntVector}s with the same number of lanes, updated with masked blends and
+ * narrowed back. The blends are the {@link pityCursor} rules in mask form; the results are
+ * exactly those of the scalar loop (checked by pullPopulationTest).
+ *
+ * Only loaded when the JVM runs with {@code --add-modules jdk.incubator.vector}
+ * (see {@link pullPopulation#VECTOR_AVAILABLE}).
+ */
+final class pullPopulationVector {
+
+    // Species are constants so the JIT compiles the vector operations to SIMD instructions;
+    // byte lanes are loaded 8 at a time, of which the first LONGS.length() are used
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.length() * Integer.SIZE));
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+    private static final VectorMask<Byte> LANE_MASK = BYTES.indexInRange(0, LONGS.length());
+
+    private final pityTable table;
+
+    // Gather indexes of one vector of lanes
+    private final int[] index5 = new int[LONGS.length()];
+    private final int[] index45 = new int[LONGS.length()];
+
+    /**
+     * @param table pity table of the population
+     */
+    pullPopulationVector(pityTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Whether the hardware has vectors of at least 2 and at most 8 longs; otherwise the scalar loop is used.
+     */
+    static boolean isSupported() {
+        return LONGS.length() >= 2 && LONGS.length() <= BYTES.length();
+    }
+
+    /**
+     * Number of lanes processed per vector; {@link #step} handles a multiple of it.
+     */
+    int lanes() {
+        return LONGS.length();
+    }
+
+    /**
+     * Advances the lanes {@code from .. from + count} by one pull, where {@code count} is a
+     * multiple of {@link #lanes()} and {@code draws[j]} is the draw of lane {@code from + j}.
+     * Adds the results to {@code counts}.
+     */
+    void step(byte[] counter4, byte[] counter5, byte[] guaranteed, int from, int count, long[] draws, long[] counts) {
+        long[] threshold5 = table.threshold5Table();
+        long[] thresholdUp5 = table.thresholdUp5Table();
+        long[] threshold45 = table.threshold45Table();
+        int step = LONGS.length();
+
+        long n4 = 0, n5 = 0, nUp5 = 0;
+        for (int j = 0; j < count; j += step) {
+            int i = from + j;
+            IntVector c5 = widen(counter5, i);
+            IntVector c4 = widen(counter4, i);
+            IntVector g = widen(guaranteed, i);
+
+            // Gather the thresholds of each lane's counters
+            c5.intoArray(index5, 0);
+            c5.mul(pityTable.COUNTER_4_SIZE).add(c4).intoArray(index45, 0);
+            LongVector u = LongVector.fromArray(LONGS, draws, j);
+            VectorMask<Integer> is5 = u.lt(LongVector.fromArray(LONGS, threshold5, 0, index5, 0)).cast(INTS);
+            VectorMask<Integer> is45 = u.lt(LongVector.fromArray(LONGS, threshold45, 0, index45, 0)).cast(INTS);
+            VectorMask<Integer> win = u.lt(LongVector.fromArray(LONGS, thresholdUp5, 0, index5, 0)).cast(INTS)
+                    .or(g.compare(VectorOperators.NE, 0));
+            VectorMask<Integer> is4 = is45.andNot(is5);
+            VectorMask<Integer> up5 = is5.and(win);
+
+            // A 5★ clears both counters, a 4★ clears counter_4; a lost 50-50 sets the guarantee
+            narrow(c5.add(1).blend(0, is5), counter5, i);
+            narrow(c4.add(1).blend(0, is45), counter4, i);
+            narrow(g.blend(1, is5.andNot(win)).blend(0, up5), guaranteed, i);
+
+            n4 += is4.trueCount();
+            n5 += is5.trueCount() - up5.trueCount();
+            nUp5 += up5.trueCount();
+        }
+
+        counts[pullEngine.RESULT_3] += count - n4 - n5 - nUp5;
+        counts[pullEngine.RESULT_4] += n4;
+        counts[pullEngine.RESULT_5] += n5;
+        counts[pullEngine.RESULT_UP5] += nUp5;
+    }
+
+    private static IntVector widen(byte[] lanes, int offset) {
+        ByteVector bytes = (LONGS.length() == BYTES.length()) ? ByteVector.fromArray(BYTES, lanes, offset)
+                : ByteVector.fromArray(BYTES, lanes, offset, LANE_MASK);
+        return (IntVector) bytes
+                .convertShape(VectorOperators.B2I, INTS, 0);
+    }
+
+    private static void narrow(IntVector values, byte[] lanes, int offset) {
+        ByteVector bytes = (ByteVector) values.convertShape(VectorOperators.I2B, BYTES, 0);
+        if (LONGS.length() == BYTES.length()) {
+            bytes.intoArray(lanes, offset);
+        } else {
+            bytes.intoArray(lanes, offset, LANE_MASK);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package tools;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe pull session built on the immutable {@link pityState}.
+ *
+ * The current state is held in an AtomicReference. A pull computes the next state from a
+ * snapshot with the pure transition and publishes it with compare-and-set; if another thread
+ * got there first, the batch is recomputed from the new state. No lock is taken, so the UI,
+ * a CLI or background workers can share one session, and any number of sessions can run
+ * side by side in one JVM.
+ *
+ * A batch is atomic: its pulls are contiguous in the session's sequence, and the listener
+ * only sees them after the batch has been committed, in order.
+ */
+public class pullSession {
+
+    private final AtomicReference<pityState> state;
+    private final pityTable table;
+
+    /**
+     * Creates a session with fresh pity, reproducible from the seed.
+     */
+    public pullSession(long seed) {
+        this(pityState.initial(seed));
+    }
+
+    public pullSession(pityState initial) {
+        this(initial, pityTable.DEFAULT);
+    }
+
+    public pullSession(pityState initial, pityTable table) {
+        this.state = new AtomicReference<>(initial);
+        this.table = table;
+    }
+
+    /**
+     * Performs one pull atomically.
+     */
+    public pullStep pullOne() {
+        long start = simMetrics.GLOBAL.startBatch();
+        while (true) {
+            pityState current = state.get();
+            pullStep step = current.next(table);
+            if (state.compareAndSet(current, step.state())) {
+                simMetrics.GLOBAL.endBatch(start, 1, drawsOf(step.fiftyFifty()));
+                return step;
+            }
+        }
+    }
+
+    /**
+     * Performs {@code pulls} pulls as one atomic batch and then reports them to the listener.
+     *
+     * @return the state after the batch
+     */
+    public pityState pull(int pulls, pullListener listener) {
+        if (pulls < 0) {
+            throw new IllegalArgumentException("pulls must not be negative: " + pulls);
+        }
+        long start = simMetrics.GLOBAL.startBatch();
+        eventBuffer events = new eventBuffer(pulls);
+        while (true) {
+            pityState current = state.get();
+            events.clear();
+            pityState next = current.pull(pulls, table, events);
+            if (state.compareAndSet(current, next)) {
+                simMetrics.GLOBAL.endBatch(start, pulls, events.draws);
+                events.replay(listener);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Resets pity and the featured guarantee; the random sequence continues.
+     */
+    public void reset() {
+        state.updateAndGet(pityState::reset);
+    }
+
+    /**
+     * Replaces the session state, e.g. with one taken from a snapshot.
+     */
+    public void restore(pityState restored) {
+        state.set(restored);
+    }
+
+    /**
+     * Returns the current state. It is immutable and stays valid while the session moves on.
+     */
+    public pityState getState() {
+        return state.get();
+    }
+
+    public pityTable getTable() {
+        return table;
+    }
+
+    /**
+     * Random numbers a pull took: one, plus one for the 50-50 of a 5★ that was not guaranteed.
+     */
+    private static int drawsOf(int fiftyFifty) {
+        return (fiftyFifty == pullEngine.FIFTY_WON || fiftyFifty == pullEngine.FIFTY_LOST) ? 2 : 1;
+    }
+
+    /**
+     * Holds the events of an uncommitted batch, one packed int per pull:
+     * bits 0-1 result, 2-3 50-50 outcome, 4-7 pity4, 8-14 pity5.
+     */
+    private static final class eventBuffer implements pullListener {
+        private final int[] events;
+        private int size;
+        long draws;
+
+        eventBuffer(int capacity) {
+            events = new int[capacity];
+        }
+
+        void clear() {
+            size = 0;
+            draws = 0;
+        }
+
+        @Override
+        public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+            events[size++] = result | (fiftyFifty << 2) | (pity4 << 4) | (pity5 << 8);
+            draws += drawsOf(fiftyFifty);
+        }
+
+        void replay(pullListener listener) {
+            for (int i = 0; i < size; i++) {
+                int e = events[i];
+                listener.onPull(e & 0b11, e >>> 8, (e >>> 4) & 0xF, (e >>> 2) & 0b11);
+            }
+        }
+    }
+}
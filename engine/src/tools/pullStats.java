@@ -0,0 +1,213 @@
+package tools;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Running statistics over a stream of pull results.
+ *
+ * Updated in O(1) per pull as results are produced, so reading the totals never
+ * requires a pass over the history. Pity and 50-50 state are derived from the
+ * result sequence itself:
+ *   - the pity of a 5★ is the number of pulls since the previous 5★ (inclusive)
+ *   - a 5★ is a 50-50 unless the previous 5★ was non-featured
+ */
+public class pullStats implements pullListener {
+
+    // Size of the state written by write(ByteBuffer): nine longs and a flag
+    static final int BYTES = 9 * Long.BYTES + 1;
+
+    private long count3;
+    private long count4;
+    private long count5;
+    private long countUp5;
+
+    // Sum of pity positions at which 5★ (featured or not) landed
+    private long pitySum5;
+
+    // 50-50 outcomes (guaranteed featured 5★ are not counted)
+    private long fiftyFiftyWins;
+    private long fiftyFiftyLosses;
+
+    // Pulls since the last 5★, and the longest such stretch that ended in a 5★
+    private long sinceLast5;
+    private long longestDrought;
+
+    private boolean guaranteed;
+
+    /**
+     * Adds one result code (RESULT_3 .. RESULT_UP5 from {@link pullEngine}).
+     */
+    public void record(int result) {
+        sinceLast5++;
+
+        switch (result) {
+            case pullEngine.RESULT_3:
+                count3++;
+                break;
+            case pullEngine.RESULT_4:
+                count4++;
+                break;
+            case pullEngine.RESULT_5:
+            case pullEngine.RESULT_UP5:
+                record5(result == pullEngine.RESULT_UP5);
+                break;
+        }
+    }
+
+    /**
+     * Adds {@code count} 3★ results at once; same as calling {@link #record(int)} that many times.
+     */
+    public void recordThrees(long count) {
+        sinceLast5 += count;
+        count3 += count;
+    }
+
+    @Override
+    public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+        record(result);
+    }
+
+    @Override
+    public void onThrees(int count, int pity5, int pity4) {
+        recordThrees(count);
+    }
+
+    private void record5(boolean featured) {
+        if (featured) {
+            countUp5++;
+        } else {
+            count5++;
+        }
+
+        if (!guaranteed) {
+            if (featured) {
+                fiftyFiftyWins++;
+            } else {
+                fiftyFiftyLosses++;
+            }
+        }
+        guaranteed = !featured;
+
+        pitySum5 += sinceLast5;
+        longestDrought = Math.max(longestDrought, sinceLast5);
+        sinceLast5 = 0;
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public void reset() {
+        count3 = 0;
+        count4 = 0;
+        count5 = 0;
+        countUp5 = 0;
+        pitySum5 = 0;
+        fiftyFiftyWins = 0;
+        fiftyFiftyLosses = 0;
+        sinceLast5 = 0;
+        longestDrought = 0;
+        guaranteed = false;
+    }
+
+    /**
+     * Returns an independent copy, e.g. to hand to the UI while pulls continue.
+     */
+    public pullStats copy() {
+        pullStats copy = new pullStats();
+        copy.count3 = count3;
+        copy.count4 = count4;
+        copy.count5 = count5;
+        copy.countUp5 = countUp5;
+        copy.pitySum5 = pitySum5;
+        copy.fiftyFiftyWins = fiftyFiftyWins;
+        copy.fiftyFiftyLosses = fiftyFiftyLosses;
+        copy.sinceLast5 = sinceLast5;
+        copy.longestDrought = longestDrought;
+        copy.guaranteed = guaranteed;
+        return copy;
+    }
+
+    /**
+     * Writes the full state to the buffer (see {@link sessionSnapshot}).
+     */
+    void write(ByteBuffer out) {
+        out.putLong(count3).putLong(count4).putLong(count5).putLong(countUp5);
+        out.putLong(pitySum5).putLong(fiftyFiftyWins).putLong(fiftyFiftyLosses);
+        out.putLong(sinceLast5).putLong(longestDrought);
+        out.put((byte) (guaranteed ? 1 : 0));
+    }
+
+    /**
+     * Replaces the state with one written by {@link #write(ByteBuffer)}.
+     */
+    void read(ByteBuffer in) {
+        count3 = in.getLong();
+        count4 = in.getLong();
+        count5 = in.getLong();
+        countUp5 = in.getLong();
+        pitySum5 = in.getLong();
+        fiftyFiftyWins = in.getLong();
+        fiftyFiftyLosses = in.getLong();
+        sinceLast5 = in.getLong();
+        longestDrought = in.getLong();
+        guaranteed = in.get() != 0;
+    }
+
+    public long getTotal() {
+        return count3 + count4 + count5 + countUp5;
+    }
+
+    public long getCount3() {
+        return count3;
+    }
+
+    public long getCount4() {
+        return count4;
+    }
+
+    public long getCount5() {
+        return count5;
+    }
+
+    public long getCountUp5() {
+        return countUp5;
+    }
+
+    /**
+     * Average pity position of all 5★ (featured or not), or 0 if there are none yet.
+     */
+    public double getAveragePity5() {
+        long all5 = count5 + countUp5;
+        return (all5 == 0) ? 0.0 : (double) pitySum5 / all5;
+    }
+
+    /**
+     * Fraction of 50-50s won, or 0 if no 50-50 has happened yet.
+     */
+    public double getFiftyFiftyWinRate() {
+        long total = fiftyFiftyWins + fiftyFiftyLosses;
+        return (total == 0) ? 0.0 : (double) fiftyFiftyWins / total;
+    }
+
+    public long getFiftyFiftyWins() {
+        return fiftyFiftyWins;
+    }
+
+    public long getFiftyFiftyLosses() {
+        return fiftyFiftyLosses;
+    }
+
+    /**
+     * Longest stretch of pulls without a 5★, including the current unfinished one.
+     */
+    public long getLongestDrought() {
+        return Math.max(longestDrought, sinceLast5);
+    }
+
+    /**
+     * Pulls made since the last 5★.
+     */
+    public long getCurrentDrought() {
+        return sinceLast5;
+    }
+}
@@ -0,0 +1,13 @@
+package tools;
+
+/**
+ * Outcome of one pure pull transition (see {@link pityState#next(pityTable)}).
+ *
+ * @param state      pity state after the pull
+ * @param result     RESULT_3 .. RESULT_UP5 from {@link pullEngine}
+ * @param pity5      pity position of the pull since the last 5★ (1..80)
+ * @param pity4      pity position of the pull since the last 4★ or 5★ (1..10)
+ * @param fiftyFifty FIFTY_NONE .. FIFTY_GUARANTEED from {@link pullEngine}
+ */
+public record pullStep(pityState state, int result, int pity5, int pity4, int fiftyFifty) {
+}
@@ -0,0 +1,56 @@
+package tools;
+
+import java.util.List;
+
+/**
+ * Append-only store of pull result codes, filled by subscribing it to pull events.
+ * Implemented on the heap by {@link pullHistory} and on disk by {@link pullLog}.
+ */
+public interface pullStore extends pullListener {
+
+    /**
+     * Number of results stored.
+     */
+    long size();
+
+    /**
+     * Returns the result code (RESULT_3 .. RESULT_UP5) at the given position.
+     */
+    int get(long index);
+
+    /**
+     * Removes all results.
+     */
+    void clear();
+
+    /**
+     * Bytes currently reserved for the results, in memory or mapped from a file.
+     */
+    long capacityBytes();
+
+    /**
+     * Returns an independent heap copy of the results, unaffected by later appends or a clear().
+     */
+    default pullHistory copy() {
+        pullHistory copy = new pullHistory();
+        for (long i = 0; i < size(); i++) {
+            copy.add(get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a read-only view of the whole store as display Strings.
+     */
+    default List<String> asList() {
+        return view(0, -1);
+    }
+
+    /**
+     * Returns a read-only view of the entries from {@code from} (inclusive) to {@code to} (exclusive),
+     * decoded on demand. A negative {@code to} means "up to the current end", so the view follows later appends.
+     */
+    default List<String> view(long from, long to) {
+        return new pullLabelView(this, from, to);
+    }
+}
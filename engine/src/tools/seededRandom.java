@@ -0,0 +1,51 @@
+package tools;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Small SplitMix64 generator whose whole state is one long.
+ *
+ * Same algorithm as {@link java.util.SplittableRandom}, but the state can be read and
+ * set, so a session snapshot can continue the exact random sequence after a restore.
+ * Not thread-safe; each engine owns its own instance.
+ */
+public class seededRandom implements RandomGenerator {
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public seededRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Seeds from the current time, for sessions that do not need to be replayed.
+     */
+    public seededRandom() {
+        this(mix(System.nanoTime() ^ System.currentTimeMillis()));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * SplitMix64 output function; also used by the pure transition in {@link pityState}.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,234 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * Binary snapshot of a complete simulator session: pity counters, featured guarantee,
+ * random generator state, history, running statistics and pity histogram.
+ *
+ * File layout (little endian):
+ *   int   magic "WWSS", int version
+ *   int   counter_4, int counter_5, byte guaranteed
+ *   byte  RNG kind (RNG_NONE or RNG_SEEDED), long RNG state
+ *   long  start of the last pull batch
+ *   ...   pullStats state (pullStats.BYTES)
+ *   ...   pityHistogram state (pityHistogram.BYTES; since version 2)
+ *   long  history size, int word count, long[] packed history words
+ *
+ * The file is written with one buffer and read back with one bulk read; the packed
+ * history words are copied as a block, so restoring millions of pulls takes milliseconds.
+ * The RNG state is only saved for {@link seededRandom}; other generators cannot be captured.
+ * Version 1 files have no pity histogram; it is rebuilt from the history when they are loaded.
+ */
+public final class sessionSnapshot {
+
+    private static final int MAGIC = 0x53535757;   // "WWSS" read as a little-endian int
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_PITY = 1;
+
+    private static final byte RNG_NONE = 0;
+    private static final byte RNG_SEEDED = 1;
+
+    // Everything before the history words, in a version 1 file
+    private static final int FIXED_SIZE = 4 + 4 + 4 + 4 + 1 + 1 + 8 + 8 + pullStats.BYTES + 8 + 4;
+
+    private final int counter4;
+    private final int counter5;
+    private final boolean guaranteed;
+    private final boolean hasRngState;
+    private final long rngState;
+    private final long lastPullStart;
+    private final pullStats stats;
+    private final pityHistogram pity;
+    private final pullHistory history;
+
+    private sessionSnapshot(int counter4, int counter5, boolean guaranteed, boolean hasRngState, long rngState,
+                            long lastPullStart, pullStats stats, pityHistogram pity, pullHistory history) {
+        this.counter4 = counter4;
+        this.counter5 = counter5;
+        this.guaranteed = guaranteed;
+        this.hasRngState = hasRngState;
+        this.rngState = rngState;
+        this.lastPullStart = lastPullStart;
+        this.stats = stats;
+        this.pity = pity;
+        this.history = history;
+    }
+
+    /**
+     * Writes a snapshot of the given session state. The file is written next to the target
+     * and then moved over it, so an existing snapshot is never left half-written.
+     */
+    public static void save(Path path, pullEngine engine, pullStore history, pullStats stats, pityHistogram pity,
+                            long lastPullStart) throws IOException {
+        pullHistory packed = pack(history);
+        int words = packed.usedWords();
+
+        ByteBuffer out = ByteBuffer.allocate(FIXED_SIZE + pityHistogram.BYTES + words * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putInt(engine.getCounter4()).putInt(engine.getCounter5());
+        out.put((byte) (engine.isGuaranteed() ? 1 : 0));
+
+        if (engine.getRandom() instanceof seededRandom) {
+            out.put(RNG_SEEDED).putLong(((seededRandom) engine.getRandom()).getState());
+        } else {
+            out.put(RNG_NONE).putLong(0L);
+        }
+
+        out.putLong(lastPullStart);
+        stats.write(out);
+        pity.write(out);
+        out.putLong(packed.size()).putInt(words);
+        out.asLongBuffer().put(packed.words(), 0, words);
+        out.position(out.limit()).flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #save}.
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static sessionSnapshot load(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < FIXED_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not a session snapshot (bad size " + fileSize + "): " + path);
+            }
+            in = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("Unexpected end of session snapshot: " + path);
+                }
+            }
+            in.flip();
+        }
+
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a session snapshot (bad magic): " + path);
+        }
+        int version = in.getInt();
+        if (version != VERSION && version != VERSION_WITHOUT_PITY) {
+            throw new IOException("Unsupported session snapshot version " + version + ": " + path);
+        }
+
+        int counter4 = in.getInt();
+        int counter5 = in.getInt();
+        byte guaranteedFlag = in.get();
+        byte rngKind = in.get();
+        long rngState = in.getLong();
+        if (counter4 < 0 || counter4 >= pityTable.COUNTER_4_SIZE) {
+            throw new IOException("Corrupt session snapshot (counter_4 out of range: " + counter4 + "): " + path);
+        }
+        if (counter5 < 0 || counter5 >= pityTable.COUNTER_5_SIZE) {
+            throw new IOException("Corrupt session snapshot (counter_5 out of range: " + counter5 + "): " + path);
+        }
+        if (guaranteedFlag != 0 && guaranteedFlag != 1) {
+            throw new IOException("Corrupt session snapshot (guaranteed flag " + guaranteedFlag + "): " + path);
+        }
+        if (rngKind != RNG_NONE && rngKind != RNG_SEEDED) {
+            throw new IOException("Corrupt session snapshot (RNG kind " + rngKind + "): " + path);
+        }
+        boolean guaranteed = guaranteedFlag == 1;
+        boolean hasRngState = rngKind == RNG_SEEDED;
+        long lastPullStart = in.getLong();
+
+        pullStats stats = new pullStats();
+        stats.read(in);
+        pityHistogram pity = null;
+        if (version != VERSION_WITHOUT_PITY) {
+            if (in.remaining() < pityHistogram.BYTES + 8 + 4) {
+                throw new IOException("Not a session snapshot (bad size " + in.limit() + "): " + path);
+            }
+            pity = new pityHistogram();
+            pity.read(in);
+        }
+
+        long size = in.getLong();
+        int words = in.getInt();
+        if (words < 0 || in.remaining() != (long) words * Long.BYTES) {
+            throw new IOException("Corrupt session snapshot (history length mismatch): " + path);
+        }
+        long[] packed = new long[words];
+        in.asLongBuffer().get(packed);
+
+        pullHistory history;
+        try {
+            history = new pullHistory(packed, size);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt session snapshot (" + e.getMessage() + "): " + path, e);
+        }
+        if (lastPullStart < 0 || lastPullStart > size) {
+            throw new IOException("Corrupt session snapshot (last batch start " + lastPullStart
+                    + " outside history of " + size + "): " + path);
+        }
+        if (pity == null) {
+            pity = pityHistogram.of(history);
+        } else if (pity.getPulls() != size) {
+            throw new IOException("Corrupt session snapshot (pity histogram of " + pity.getPulls()
+                    + " pulls, history of " + size + "): " + path);
+        }
+        return new sessionSnapshot(counter4, counter5, guaranteed, hasRngState, rngState,
+                lastPullStart, stats, pity, history);
+    }
+
+    /**
+     * Returns the history as a heap pullHistory, copying only if it is stored some other way.
+     */
+    private static pullHistory pack(pullStore history) {
+        if (history instanceof pullHistory) {
+            return (pullHistory) history;
+        }
+        return history.copy();
+    }
+
+    /**
+     * Creates an engine in the saved pity state. It continues the saved random sequence if one
+     * was captured; otherwise it draws from {@code fallback}.
+     */
+    public pullEngine createEngine(RandomGenerator fallback) {
+        RandomGenerator random = hasRngState ? new seededRandom(rngState) : fallback;
+        pullEngine engine = new pullEngine(random);
+        engine.restore(counter4, counter5, guaranteed);
+        return engine;
+    }
+
+    public boolean hasRngState() {
+        return hasRngState;
+    }
+
+    public pullHistory getHistory() {
+        return history;
+    }
+
+    public pullStats getStats() {
+        return stats;
+    }
+
+    public pityHistogram getPityHistogram() {
+        return pity;
+    }
+
+    public long getLastPullStart() {
+        return lastPullStart;
+    }
+}
@@ -0,0 +1,284 @@
+package tools;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide simulation metrics: pulls, pulls per second, random draws per pull, batch
+ * latency, active sessions and the memory reserved by pull histories.
+ *
+ * Counters are {@link LongAdder}s, so threads recording at the same time update separate
+ * cells instead of contending on one value. The hot loops never record per pull: the engine
+ * counts its draws in a plain field ({@link pullEngine#getDraws()}) and the batch entry points
+ * ({@link pullSession#pull(int, pullListener)}, {@link pullBatch}, the simulator) add one
+ * batch at a time. Sums are only formed when a value is read.
+ *
+ * Reading the clock costs more than a small batch itself, so pull(n) batches are timed on a
+ * random sample of 1 in {@value #LATENCY_SAMPLE} ({@link #startBatch()}); an untimed batch
+ * costs one counter update. Draws per pull are measured on the same sample.
+ *
+ * History memory is only summed over the stores a session registers with
+ * {@link #trackHistory(pullStore)}; temporary copies are never counted and never lock anything.
+ *
+ * Exported as a standard MBean (see {@link simMetricsMBean}) after {@link #register()}.
+ */
+public final class simMetrics implements simMetricsMBean {
+
+    public static final String OBJECT_NAME = "wuwa:type=simMetrics";
+
+    /** The instance every engine class records to. */
+    public static final simMetrics GLOBAL = new simMetrics();
+
+    /** One in this many pull(n) batches is timed. */
+    public static final int LATENCY_SAMPLE = 16;
+
+    // Returned by startBatch() for a batch that is not timed
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    // Latency buckets: bucket i holds latencies in [2^(i-1), 2^i) ns
+    private static final int BUCKETS = Long.SIZE;
+
+    // Minimum interval over which getPullsPerSecond() measures
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final LongAdder pulls = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    // Pulls whose draws were counted, the denominator of getRngDrawsPerPull()
+    private final LongAdder drawnPulls = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final LongAccumulator maxBatchNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] latency = new LongAdder[BUCKETS];
+    private final LongAdder sessions = new LongAdder();
+
+    // Session histories, weakly held so a dropped session's history is no longer counted
+    private final Map<pullStore, Boolean> histories = new WeakHashMap<>();
+
+    // Sampling state of getPullsPerSecond()
+    private long rateNanos = System.nanoTime();
+    private long ratePulls;
+    private double rate;
+
+    private simMetrics() {
+        for (int i = 0; i < BUCKETS; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registers {@link #GLOBAL} with the platform MBean server. Does nothing if it is already registered.
+     *
+     * @throws IllegalStateException if the MBean server rejects it
+     */
+    public static synchronized void register() {
+        jmx.register();
+    }
+
+    /**
+     * The only code that touches javax.management. Kept in its own class so that recording
+     * metrics (and verifying this class) does not load java.management, e.g. in {@link pullCli}.
+     */
+    private static final class jmx {
+        static void register() {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(GLOBAL, name);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+            }
+        }
+    }
+
+    // ========== Recording ==========
+
+    /**
+     * Call before a pull(n) batch and pass the result to {@link #endBatch}. Decides whether
+     * the batch is in the timing sample.
+     */
+    public long startBatch() {
+        return (ThreadLocalRandom.current().nextInt(LATENCY_SAMPLE) == 0) ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Adds a pull(n) batch started with {@link #startBatch()}. {@code draws} is only used
+     * if the batch is timed.
+     */
+    public void endBatch(long start, long pulls, long draws) {
+        this.pulls.add(pulls);
+        if (start != NOT_TIMED) {
+            this.draws.add(draws);
+            drawnPulls.add(pulls);
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds simulated pulls and the random draws they took, without timing them.
+     */
+    public void recordPulls(long pulls, long draws) {
+        this.pulls.add(pulls);
+        this.draws.add(draws);
+        drawnPulls.add(pulls);
+    }
+
+    /**
+     * Adds the latency of one batch, e.g. a whole {@link pullBatch} run.
+     */
+    public void recordLatency(long nanos) {
+        batches.increment();
+        batchNanos.add(nanos);
+        maxBatchNanos.accumulate(nanos);
+        latency[BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 1))].increment();
+    }
+
+    public void sessionOpened() {
+        sessions.increment();
+    }
+
+    public void sessionsClosed(long count) {
+        sessions.add(-count);
+    }
+
+    /**
+     * Counts the reserved storage of a session's history in {@link #getHistoryBytes()}, until
+     * {@link #untrackHistory(pullStore)} or until the history is no longer reachable.
+     * Called when a session installs a history, not per pull.
+     */
+    public void trackHistory(pullStore history) {
+        synchronized (histories) {
+            histories.put(history, Boolean.TRUE);
+        }
+    }
+
+    public void untrackHistory(pullStore history) {
+        synchronized (histories) {
+            histories.remove(history);
+        }
+    }
+
+    // ========== simMetricsMBean ==========
+
+    @Override
+    public long getPullsExecuted() {
+        return pulls.sum();
+    }
+
+    @Override
+    public synchronized double getPullsPerSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - rateNanos;
+        if (elapsed >= RATE_INTERVAL_NANOS) {
+            long total = pulls.sum();
+            rate = (total - ratePulls) * 1e9 / elapsed;
+            ratePulls = total;
+            rateNanos = now;
+        }
+        return rate;
+    }
+
+    @Override
+    public double getRngDrawsPerPull() {
+        long n = drawnPulls.sum();
+        return (n == 0) ? 0.0 : (double) draws.sum() / n;
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public double getBatchLatencyMeanMillis() {
+        long n = batches.sum();
+        return (n == 0) ? 0.0 : batchNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getBatchLatencyP50Millis() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public double getBatchLatencyP99Millis() {
+        return percentile(0.99);
+    }
+
+    @Override
+    public double getBatchLatencyMaxMillis() {
+        return maxBatchNanos.get() / 1e6;
+    }
+
+    @Override
+    public long[] getBatchLatencyHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latency[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public long getActiveSessions() {
+        return sessions.sum();
+    }
+
+    @Override
+    public long getHistoryBytes() {
+        long bytes = 0;
+        synchronized (histories) {
+            for (pullStore history : histories.keySet()) {
+                bytes += history.capacityBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized void reset() {
+        pulls.reset();
+        draws.reset();
+        drawnPulls.reset();
+        batches.reset();
+        batchNanos.reset();
+        maxBatchNanos.reset();
+        for (LongAdder bucket : latency) {
+            bucket.reset();
+        }
+        ratePulls = 0;
+        rateNanos = System.nanoTime();
+        rate = 0.0;
+    }
+
+    /**
+     * Upper bound of the histogram bucket holding the given quantile, in ms (0 if nothing was timed).
+     */
+    private double percentile(double q) {
+        long[] counts = getBatchLatencyHistogram();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(Math.scalb(1.0, i), maxBatchNanos.get()) / 1e6;
+            }
+        }
+        return maxBatchNanos.get() / 1e6;
+    }
+}
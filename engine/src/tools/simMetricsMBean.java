@@ -0,0 +1,46 @@
+package tools;
+
+/**
+ * Management interface of {@link simMetrics}, shown in JConsole/VisualVM under
+ * {@value simMetrics#OBJECT_NAME}. Latencies are in milliseconds.
+ */
+public interface simMetricsMBean {
+
+    /** Pulls simulated since start (or the last reset). */
+    long getPullsExecuted();
+
+    /** Pulls per second over the last sampling interval (at least one second). */
+    double getPullsPerSecond();
+
+    /** Random draws per simulated pull; about 1.0 in per-pull mode, far less in turbo mode. */
+    double getRngDrawsPerPull();
+
+    /**
+     * Batches timed since start: a sample of the pull(n) calls on sessions and simulators
+     * (see {@link simMetrics#LATENCY_SAMPLE}), and every batch run.
+     */
+    long getBatches();
+
+    double getBatchLatencyMeanMillis();
+
+    double getBatchLatencyP50Millis();
+
+    double getBatchLatencyP99Millis();
+
+    double getBatchLatencyMaxMillis();
+
+    /**
+     * Batch latency histogram: entry i counts the batches that took less than 2^i ns
+     * (and at least 2^(i-1) ns).
+     */
+    long[] getBatchLatencyHistogram();
+
+    /** Pull sessions currently held by the server, plus one-off sessions in progress. */
+    long getActiveSessions();
+
+    /** Bytes reserved by the live in-memory pull histories. */
+    long getHistoryBytes();
+
+    /** Sets all counters and the latency histogram back to zero. */
+    void reset();
+}
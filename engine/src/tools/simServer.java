@@ -0,0 +1,551 @@
+package tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless HTTP server for simulation requests, built on the JDK's com.sun.net.httpserver.
+ * Loads no AWT/Swing classes.
+ *
+ * Endpoints (parameters in the query string, JSON responses):
+ *   GET /pull          n=1..10000, session=id, seed=long
+ *                      Pulls on a named {@link pullSession} (created on first use, from the seed if given).
+ *                      Without a session the pulls come from a one-off session. A seed for a session
+ *                      that already exists is rejected with 409, since it could not take effect.
+ *   DELETE /session    session=id
+ *                      Ends a named session (404 if there is none).
+ *   GET /simulate      trials, pulls, seed=long, turbo=true|false
+ *                      Runs {@link pullBatch} and returns the totals and the pulls-to-featured histogram.
+ *   GET /distribution  counter5=0..79, guaranteed=true|false, pulls=0..MAX_DISTRIBUTION_PULLS
+ *                      Exact pulls-to-featured distribution from {@link pityChain}, and the distribution
+ *                      of featured 5★ within {@code pulls} pulls if given.
+ *
+ * Each request runs on its own virtual thread when the runtime supports them, otherwise on a
+ * cached thread pool. Sessions are lock-free, so concurrent requests never wait on each other;
+ * a session unused for the idle timeout is ended by a background sweep. /simulate runs on the
+ * server's own fork-join pool, at most MAX_CONCURRENT_SIMULATIONS at a time (503 beyond that),
+ * so it never competes for the common pool. Distribution answers are cached because they depend
+ * only on their parameters. Throughput, latency and session counts are exported over JMX
+ * (see {@link simMetrics}).
+ *
+ * Run with: java -cp engine.jar tools.simServer [port] [host]
+ *
+ * {@link #main} turns on {@code sun.net.httpserver.nodelay} (unless set with -D): the JDK server
+ * writes headers and body separately, and with Nagle's algorithm small responses wait for the
+ * client's delayed ACK (~40 ms each). The property is JVM-wide, so applications that embed a
+ * simServer should pass {@code -Dsun.net.httpserver.nodelay=true} themselves.
+ */
+public final class simServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    // Request limits, so one request cannot occupy the server for long
+    public static final int MAX_PULLS_PER_REQUEST = 10_000;
+    public static final long MAX_SIMULATED_PULLS = 100_000_000L;
+    public static final int MAX_DISTRIBUTION_PULLS = 1_600;
+    public static final int MAX_SESSIONS = 10_000;
+    public static final int MAX_CONCURRENT_SIMULATIONS = 4;
+    public static final long DEFAULT_SESSION_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_CACHED_DISTRIBUTIONS = 4_096;
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ForkJoinPool simulatePool;
+    private final Semaphore simulations = new Semaphore(MAX_CONCURRENT_SIMULATIONS);
+    private final ScheduledExecutorService sweeper;
+    private final long sessionIdleNanos;
+
+    private final Map<String, sessionEntry> sessions = new ConcurrentHashMap<>();
+    // Number of named sessions, kept exact so MAX_SESSIONS holds under concurrent creation
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final Map<String, String> distributionCache = Collections.synchronizedMap(new distributionLru());
+
+    /**
+     * A named session and when it was last used. lastUsedNanos is only read and written inside
+     * a compute on the session's key, so a request and the idle sweeper cannot interleave.
+     */
+    private static final class sessionEntry {
+        final pullSession session;
+        long lastUsedNanos = System.nanoTime();
+
+        sessionEntry(pullSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * A request that fails with a status other than 400 (400 is any IllegalArgumentException).
+     */
+    private static final class requestError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        requestError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Cached /distribution responses in access order; the least recently used one is dropped
+     * once there are more than MAX_CACHED_DISTRIBUTIONS.
+     */
+    private static final class distributionLru extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        distributionLru() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_DISTRIBUTIONS;
+        }
+    }
+
+    /**
+     * Creates a server bound to the given address, ending sessions idle for
+     * DEFAULT_SESSION_IDLE_MILLIS; call {@link #start()} to accept requests.
+     */
+    public simServer(InetSocketAddress address) throws IOException {
+        this(address, DEFAULT_SESSION_IDLE_MILLIS);
+    }
+
+    /**
+     * Creates a server bound to the given address; call {@link #start()} to accept requests.
+     *
+     * @param sessionIdleMillis named sessions unused for this long are ended
+     */
+    public simServer(InetSocketAddress address, long sessionIdleMillis) throws IOException {
+        if (sessionIdleMillis <= 0) {
+            throw new IllegalArgumentException("sessionIdleMillis must be positive: " + sessionIdleMillis);
+        }
+        this.sessionIdleNanos = TimeUnit.MILLISECONDS.toNanos(sessionIdleMillis);
+
+        server = HttpServer.create(address, 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        simulatePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        // Sweeps a few times per timeout, so a session lives at most about 1.25 timeouts idle
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "simServer-sessionSweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1, sessionIdleMillis / 4);
+        sweeper.scheduleWithFixedDelay(this::evictIdleSessions, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+
+        server.createContext("/pull", exchange -> handle(exchange, "GET", this::pull));
+        server.createContext("/session", exchange -> handle(exchange, "DELETE", this::deleteSession));
+        server.createContext("/simulate", exchange -> handle(exchange, "GET", this::simulate));
+        server.createContext("/distribution", exchange -> handle(exchange, "GET", this::distribution));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String host = (args.length > 1) ? args[1] : "127.0.0.1";
+
+        // Before any server class is initialized (see the class comment); an explicit -D setting wins
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+
+        simServer server = new simServer(new InetSocketAddress(host, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(0)));
+        simMetrics.register();
+        server.start();
+        System.out.println("simServer listening on http://" + host + ":" + server.getAddress().getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to {@code delaySeconds} for running ones, then shuts down.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        sweeper.shutdownNow();
+        simulatePool.shutdown();
+        for (String id : sessions.keySet()) {
+            endSession(id);
+        }
+    }
+
+    /**
+     * Number of named sessions currently open.
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Ends every named session that has not been used for the idle timeout.
+     */
+    void evictIdleSessions() {
+        long now = System.nanoTime();
+        for (String id : sessions.keySet()) {
+            // Decided under the key's lock, so a request that has just used the session keeps it
+            sessions.computeIfPresent(id, (key, entry) -> {
+                if (now - entry.lastUsedNanos < sessionIdleNanos) {
+                    return entry;
+                }
+                sessionEnded();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Removes a named session.
+     *
+     * @return false if there was none
+     */
+    private boolean endSession(String id) {
+        if (sessions.remove(id) == null) {
+            return false;
+        }
+        sessionEnded();
+        return true;
+    }
+
+    private void sessionEnded() {
+        sessionCount.decrementAndGet();
+        simMetrics.GLOBAL.sessionsClosed(1);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * One executor thread per request: virtual threads if this runtime has them enabled,
+     * a cached pool of daemon platform threads otherwise. Looked up reflectively so the
+     * engine still compiles and runs on releases where virtual threads are a preview feature.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "simServer-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // ========== Endpoints ==========
+
+    private interface endpoint {
+        String respond(Map<String, String> params);
+    }
+
+    private String pull(Map<String, String> params) {
+        int n = intParam(params, "n", 1, 1, MAX_PULLS_PER_REQUEST);
+        String id = params.get("session");
+
+        pullSession session;
+        if (id == null) {
+            session = new pullSession(seedParam(params));
+            simMetrics.GLOBAL.sessionOpened();
+        } else {
+            boolean seeded = params.containsKey("seed");
+            long seed = seedParam(params);
+            // Looked up, created or touched in one step, so the idle sweeper cannot end it in between
+            sessionEntry entry = sessions.compute(id, (key, existing) -> {
+                if (existing != null) {
+                    if (seeded) {
+                        throw new requestError(409, "Session " + id + " already exists; seed only applies when a session is created");
+                    }
+                    existing.lastUsedNanos = System.nanoTime();
+                    return existing;
+                }
+                // Counted inside the mapping, so concurrent creations cannot overshoot the limit
+                if (sessionCount.incrementAndGet() > MAX_SESSIONS) {
+                    sessionCount.decrementAndGet();
+                    throw new requestError(503, "Too many sessions (limit " + MAX_SESSIONS + ")");
+                }
+                simMetrics.GLOBAL.sessionOpened();
+                return new sessionEntry(new pullSession(seed));
+            });
+            session = entry.session;
+        }
+
+        StringBuilder results = new StringBuilder();
+        long[] counts = new long[4];
+        pityState after;
+        try {
+            after = session.pull(n, (result, pity5, pity4, fiftyFifty) -> {
+                if (results.length() > 0) {
+                    results.append(',');
+                }
+                appendString(results, pullEngine.label(result));
+                counts[result]++;
+            });
+        } finally {
+            if (id == null) {
+                // The one-off session ends with this request
+                simMetrics.GLOBAL.sessionsClosed(1);
+            }
+        }
+
+        StringBuilder json = new StringBuilder(results.length() + 200);
+        json.append('{');
+        if (id != null) {
+            json.append("\"session\":");
+            appendString(json, id);
+            json.append(',');
+        }
+        json.append("\"results\":[").append(results).append("],");
+        appendCounts(json, counts);
+        json.append(",\"counter4\":").append(after.counter4())
+                .append(",\"counter5\":").append(after.counter5())
+                .append(",\"guaranteed\":").append(after.guaranteed())
+                .append('}');
+        return json.toString();
+    }
+
+    private String deleteSession(Map<String, String> params) {
+        String id = params.get("session");
+        if (id == null) {
+            throw new IllegalArgumentException("session is required");
+        }
+        if (!endSession(id)) {
+            throw new requestError(404, "No session " + id);
+        }
+        StringBuilder json = new StringBuilder("{\"session\":");
+        appendString(json, id);
+        return json.append(",\"deleted\":true}").toString();
+    }
+
+    private String simulate(Map<String, String> params) {
+        long trials = longParam(params, "trials", 10_000, 1, MAX_SIMULATED_PULLS);
+        int pulls = intParam(params, "pulls", 160, 1, (int) Math.min(Integer.MAX_VALUE, MAX_SIMULATED_PULLS));
+        if (trials * pulls > MAX_SIMULATED_PULLS) {
+            throw new IllegalArgumentException("trials * pulls must not exceed " + MAX_SIMULATED_PULLS);
+        }
+        long seed = seedParam(params);
+        boolean turbo = Boolean.parseBoolean(params.getOrDefault("turbo", "false"));
+
+        if (!simulations.tryAcquire()) {
+            throw new requestError(503, "Too many simulations in progress (limit " + MAX_CONCURRENT_SIMULATIONS + ")");
+        }
+        batchResult result;
+        try {
+            result = pullBatch.simulateMany(trials, pulls, new SplittableRandom(seed), turbo, simulatePool);
+        } finally {
+            simulations.release();
+        }
+
+        StringBuilder json = new StringBuilder(2048);
+        json.append("{\"trials\":").append(result.getTrials())
+                .append(",\"pulls\":").append(pulls)
+                .append(",\"seed\":").append(seed)
+                .append(',');
+        appendCounts(json, new long[] {
+                result.getCount3(), result.getCount4(), result.getCount5(), result.getCountUp5() });
+        json.append(",\"unresolvedTrials\":").append(result.getUnresolvedTrials())
+                .append(",\"pullsToFeatured\":");
+        appendArray(json, result.getPullsToFeatured());
+        json.append('}');
+        return json.toString();
+    }
+
+    private String distribution(Map<String, String> params) {
+        int counter5 = intParam(params, "counter5", 0, 0, pityTable.COUNTER_5_SIZE - 1);
+        boolean guaranteed = Boolean.parseBoolean(params.getOrDefault("guaranteed", "false"));
+        int pulls = intParam(params, "pulls", -1, -1, MAX_DISTRIBUTION_PULLS);
+
+        String key = counter5 + "/" + guaranteed + "/" + pulls;
+        String cached = distributionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        double[] toFeatured = pityChain.pullsToFeatured(counter5, guaranteed);
+        StringBuilder json = new StringBuilder(8192);
+        json.append("{\"counter5\":").append(counter5)
+                .append(",\"guaranteed\":").append(guaranteed)
+                .append(",\"pullsToFeatured\":");
+        appendArray(json, toFeatured);
+        json.append(",\"meanPullsToFeatured\":").append(pityChain.mean(toFeatured));
+        if (pulls >= 0) {
+            double[] count = pityChain.featuredCountAfter(pulls, counter5, guaranteed);
+            json.append(",\"pulls\":").append(pulls).append(",\"featuredCount\":");
+            appendArray(json, count);
+            json.append(",\"meanFeaturedCount\":").append(pityChain.mean(count));
+        }
+        json.append('}');
+
+        String response = json.toString();
+        distributionCache.put(key, response);
+        return response;
+    }
+
+    // ========== Request handling ==========
+
+    private static void handle(HttpExchange exchange, String method, endpoint endpoint) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                send(exchange, 405, error("Only " + method + " is supported"));
+                return;
+            }
+            String body;
+            try {
+                body = endpoint.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (requestError e) {
+                send(exchange, e.status, error(e.getMessage()));
+                return;
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()));
+                return;
+            } catch (RuntimeException e) {
+                // Details stay in the server log; clients only learn that the request failed
+                System.err.println("simServer: " + method + " " + exchange.getRequestURI() + " failed");
+                e.printStackTrace();
+                send(exchange, 500, error("Internal server error"));
+                return;
+            }
+            send(exchange, 200, body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static long longParam(Map<String, String> params, String name, long fallback, long min, long max) {
+        String text = params.get(name);
+        if (text == null) {
+            return fallback;
+        }
+        long value;
+        try {
+            value = Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + text);
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ": " + value);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int fallback, int min, int max) {
+        return (int) longParam(params, name, fallback, min, max);
+    }
+
+    private static long seedParam(Map<String, String> params) {
+        return params.containsKey("seed")
+                ? longParam(params, "seed", 0, Long.MIN_VALUE, Long.MAX_VALUE)
+                : ThreadLocalRandom.current().nextLong();
+    }
+
+    // ========== JSON output ==========
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, String.valueOf(message));
+        return json.append('}').toString();
+    }
+
+    private static void appendCounts(StringBuilder json, long[] counts) {
+        json.append("\"counts\":{\"3\":").append(counts[pullEngine.RESULT_3])
+                .append(",\"4\":").append(counts[pullEngine.RESULT_4])
+                .append(",\"5\":").append(counts[pullEngine.RESULT_5])
+                .append(",\"up5\":").append(counts[pullEngine.RESULT_UP5])
+                .append('}');
+    }
+
+    private static void appendArray(StringBuilder json, long[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(values[i]);
+        }
+        json.append(']');
+    }
+
+    private static void appendArray(StringBuilder json, double[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(values[i]);
+        }
+        json.append(']');
+    }
+
+    private static void appendString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '"':  json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n");  break;
+                case '\r': json.append("\\r");  break;
+                case '\t': json.append("\\t");  break;
+                default:
+                    if (ch < 0x20) {
+                        json.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        json.append(ch);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,32 @@
+import tools.toolCatalog;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the application jar.
+ *
+ * {@code --tool <name> [tool arguments]} runs one tool without a UI, and {@code --tool} without a
+ * name prints the usage and exits with 2; anything else starts the Swing application
+ * ({@link MainUI}). This class has no AWT/Swing references, so the console path never loads or
+ * initializes the UI toolkit.
+ */
+public class MainLauncher {
+    public static void main(String[] args) {
+        // Headless mode: --tool <name> [tool arguments]
+        if (args.length >= 1 && args[0].equals("--tool")) {
+            toolCatalog catalog = toolCatalog.discover();
+            if (args.length < 2) {
+                System.err.println("Usage: --tool <name> [tool arguments]");
+                catalog.printTools(System.err);
+                System.exit(2);
+            }
+            int code = catalog.launch(args[1], Arrays.copyOfRange(args, 2, args.length));
+            if (code != 0) {
+                System.exit(code);
+            }
+            return;
+        }
+
+        MainUI.main(args);
+    }
+}
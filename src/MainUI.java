@@ -1,15 +1,27 @@
-import tools.pullSimulator;
-import tools.tool;
+import tools.edtWatchdog;
+import tools.simMetrics;
+import tools.startupTimer;
+import tools.toolMgr;
 
 import javax.swing.JFrame;
 import javax.swing.JTabbedPane;
 import javax.swing.SwingUtilities;
 import java.awt.BorderLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class MainUI {
+    // Started by MainLauncher, which handles --tool without loading this class
     public static void main(String[] args) {
+        startupTimer.mark("main");
+        startupTimer.dumpOnExit();
+
+        // Opt-in report of Event Dispatch Thread stalls (-Dwuwa.edtWatchdog[=ms])
+        edtWatchdog.installFromProperty();
+
         // Make sure GUI creation is done on Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
+            startupTimer.mark("edt");
             new MainUI().createAndShowGUI();
         });
     }
@@ -20,27 +32,19 @@ public class MainUI {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLayout(new BorderLayout());
 
+        // Tools are discovered from META-INF/services and only built when their tab is first shown
+        // (or in idle time after the window is up), so adding tools does not slow down startup.
+        toolMgr tools = toolMgr.discover();
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                tools.dispose();
+            }
+        });
+
         // Create a tabbed pane to hold different tools
         JTabbedPane tabbedPane = new JTabbedPane();
-
-        // 1) Pull Simulator Tool
-        tool pullSimTool = new pullSimulator();
-        tabbedPane.addTab(
-                "Pull Simulator",
-                ((pullSimulator) pullSimTool).getMainPanel()
-        );
-
-        // 2) Placeholder for other tool(s)
-        //    For example: "Pull Analysis" or any other tool you have.
-        //    If you create a class PullAnalysis implements Tool,
-        //    then do something like:
-        /*
-        Tool pullAnalysisTool = new PullAnalysis();
-        tabbedPane.addTab(
-            "Pull Analysis", 
-            ((PullAnalysis) pullAnalysisTool).getMainPanel()
-        );
-        */
+        tools.installTabs(tabbedPane);
 
         // Add the tabbed pane to the frame
         frame.add(tabbedPane, BorderLayout.CENTER);
@@ -49,5 +53,12 @@ public class MainUI {
         frame.setSize(1000, 700);
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+        startupTimer.mark("frame.visible");
+        startupTimer.installInteractionProbe();
+
+        // Export simulation metrics over JMX; loading java.management is kept off the startup path
+        Thread metrics = new Thread(simMetrics::register, "simMetrics-register");
+        metrics.setDaemon(true);
+        metrics.start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package tools;
+
+import javax.swing.AbstractButton;
+import javax.swing.JComponent;
+import javax.swing.RootPaneContainer;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.io.PrintStream;
+
+/**
+ * Opt-in detector for Event Dispatch Thread stalls.
+ *
+ * Installed as the system {@link EventQueue}, it notes which event the EDT is dispatching and
+ * since when. A daemon thread checks a few times per threshold; when one event has kept the
+ * EDT busy longer than the threshold, it samples the EDT's stack and reports the stall with
+ * the tool and action that caused it. When the event finally completes, its total time is
+ * reported as well.
+ *
+ * The tool is found through the {@value #TOOL_PROPERTY} client property on the event source
+ * or one of its parents ({@link toolMgr} sets it on every tool panel), or else from the first
+ * tool class on the sampled stack. The tool and a description of the event are captured on the
+ * EDT when the dispatch starts; the checking thread only reads that record and the stack, and
+ * never touches Swing components.
+ *
+ * Enable with {@code -Dwuwa.edtWatchdog} (threshold {@value #DEFAULT_THRESHOLD_MILLIS} ms)
+ * or {@code -Dwuwa.edtWatchdog=<ms>}. Reports go to stderr.
+ */
+public class edtWatchdog extends EventQueue {
+
+    public static final String PROPERTY = "wuwa.edtWatchdog";
+
+    /** Client property naming the tool a component belongs to. */
+    public static final String TOOL_PROPERTY = "wuwa.tool";
+
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+    // Frames of the EDT stack printed per stall
+    private static final int MAX_STACK_FRAMES = 40;
+
+    private final long thresholdNanos;
+    private final PrintStream out;
+
+    // The dispatch in progress; written by the EDT, read by the watchdog thread
+    private volatile inFlight current;
+    private volatile Thread edt;
+
+    // Start (or resume) time of the dispatch last reported as stalled, so the EDT reports its end
+    private volatile long stalledStart = -1;
+
+    private edtWatchdog(long thresholdMillis, PrintStream out) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.out = out;
+    }
+
+    /**
+     * Installs the watchdog if {@value #PROPERTY} is set.
+     *
+     * @return the installed watchdog, or null if it is not enabled
+     */
+    public static edtWatchdog installFromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value == null) {
+            return null;
+        }
+        long threshold = DEFAULT_THRESHOLD_MILLIS;
+        if (!value.isEmpty() && !value.equalsIgnoreCase("true")) {
+            try {
+                threshold = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                System.err.println("edtWatchdog: " + PROPERTY + " must be a number of milliseconds: " + value);
+            }
+        }
+        return install(threshold, System.err);
+    }
+
+    /**
+     * Replaces the system event queue with a watchdog and starts its checking thread.
+     * May be called from any thread.
+     *
+     * @param thresholdMillis events that keep the EDT busy at least this long are reported
+     * @param out             where reports are printed
+     */
+    public static edtWatchdog install(long thresholdMillis, PrintStream out) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("thresholdMillis must be positive: " + thresholdMillis);
+        }
+        edtWatchdog watchdog = new edtWatchdog(thresholdMillis, out);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+
+        Thread checker = new Thread(watchdog::check, "edtWatchdog");
+        checker.setDaemon(true);
+        checker.start();
+        return watchdog;
+    }
+
+    /**
+     * An event being dispatched, as seen by the checking thread: when it started (or resumed
+     * after a nested event), and its tool and description, taken on the EDT.
+     */
+    private static final class inFlight {
+        final long startNanos;
+        // Null if no component of the event names its tool
+        final String tool;
+        final String description;
+
+        inFlight(long startNanos, String tool, String description) {
+            this.startNanos = startNanos;
+            this.tool = tool;
+            this.description = description;
+        }
+
+        inFlight resumedAt(long nanos) {
+            return new inFlight(nanos, tool, description);
+        }
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        // Modal dialogs dispatch nested events from inside an outer one; keep the outer's state
+        inFlight outer = current;
+        long start = System.nanoTime();
+        inFlight flight = new inFlight(start, toolOf(event), describe(event));
+        edt = Thread.currentThread();
+        current = flight;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            if (stalledStart >= start) {
+                stalledStart = -1;
+                out.printf("edtWatchdog: stall ended after %d ms: %s%n", (end - start) / 1_000_000, flight.description);
+                out.flush();
+            }
+            current = (outer == null) ? null : outer.resumedAt(end);
+        }
+    }
+
+    /**
+     * Body of the checking thread.
+     */
+    private void check() {
+        long pollMillis = Math.max(1, thresholdNanos / 4_000_000);
+        long reported = -1;
+        while (true) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            inFlight flight = current;
+            if (flight == null) {
+                continue;
+            }
+            long start = flight.startNanos;
+            if (start == reported || System.nanoTime() - start < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stack = edt.getStackTrace();
+            if (current != flight || isWaitingForEvents(stack)) {
+                // Finished in the meantime, or idle in a modal dialog's event loop
+                continue;
+            }
+            reported = start;
+            stalledStart = start;
+            report(flight, System.nanoTime() - start, stack);
+        }
+    }
+
+    private void report(inFlight flight, long busyNanos, StackTraceElement[] stack) {
+        String tool = (flight.tool != null) ? flight.tool : toolOf(stack);
+        StringBuilder text = new StringBuilder(2048);
+        text.append("edtWatchdog: EDT busy for ").append(busyNanos / 1_000_000).append(" ms in tool ")
+                .append(tool).append(": ").append(flight.description)
+                .append(System.lineSeparator());
+        for (int i = 0; i < stack.length && i < MAX_STACK_FRAMES; i++) {
+            if (stack[i].getClassName().equals(edtWatchdog.class.getName())) {
+                // The rest is the event loop itself
+                break;
+            }
+            text.append("    at ").append(stack[i]).append(System.lineSeparator());
+        }
+        out.print(text);
+        out.flush();
+    }
+
+    /**
+     * True if the EDT is blocked waiting for the next event, as in the nested loop of a modal dialog.
+     */
+    private static boolean isWaitingForEvents(StackTraceElement[] stack) {
+        for (int i = 0; i < stack.length && i < 12; i++) {
+            if (stack[i].getClassName().equals("java.awt.EventQueue")
+                    && stack[i].getMethodName().equals("getNextEvent")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The tool the event's source belongs to, or null. Walks the component tree, so it must
+     * run on the EDT.
+     */
+    static String toolOf(AWTEvent event) {
+        Object source = event.getSource();
+        if (source instanceof RootPaneContainer) {
+            source = ((RootPaneContainer) source).getRootPane();
+        }
+        for (Component c = (source instanceof Component) ? (Component) source : null; c != null; c = c.getParent()) {
+            if (c instanceof JComponent) {
+                Object tool = ((JComponent) c).getClientProperty(TOOL_PROPERTY);
+                if (tool != null) {
+                    return tool.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The first tool class on the stack, else "unknown".
+     */
+    static String toolOf(StackTraceElement[] stack) {
+        ClassLoader loader = edtWatchdog.class.getClassLoader();
+        for (StackTraceElement frame : stack) {
+            String name = frame.getClassName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+                    || name.startsWith("jdk.") || name.startsWith("com.sun.")) {
+                continue;
+            }
+            int nested = name.indexOf('$');
+            try {
+                Class<?> type = Class.forName((nested < 0) ? name : name.substring(0, nested), false, loader);
+                if (tool.class.isAssignableFrom(type)) {
+                    return type.getSimpleName();
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                // Not one of ours
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Short description of the action behind an event, e.g. {@code MOUSE_RELEASED on JButton "History"}.
+     * Reads the source component, so it must run on the EDT.
+     */
+    static String describe(AWTEvent event) {
+        String params = event.paramString();
+        int comma = params.indexOf(',');
+        String kind = (comma < 0) ? params : params.substring(0, comma);
+
+        if (event instanceof InvocationEvent) {
+            // invokeLater/SwingWorker tasks: name the Runnable
+            int at = params.indexOf("runnable=");
+            if (at >= 0) {
+                int end = params.indexOf(',', at);
+                return kind + " " + params.substring(at + "runnable=".length(), (end < 0) ? params.length() : end);
+            }
+            return kind;
+        }
+
+        Object source = event.getSource();
+        String target = (source == null) ? "null" : source.getClass().getSimpleName();
+        if (source instanceof AbstractButton) {
+            target += " \"" + ((AbstractButton) source).getText() + "\"";
+        }
+        return kind + " on " + target;
+    }
+}
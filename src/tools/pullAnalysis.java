@@ -1,6 +1,131 @@
 package tools;
 
-import java.util.Random;
-public class pullAnalysis {
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+
+/**
+ * The pullAnalysis tool reads exported convene records (JSON or CSV) and reports, per banner:
+ * pulls and Astrite spent, 4★/5★ counts, average pity, 50-50 wins and losses and streaks.
+ *
+ * Files are streamed through {@link conveneReader} into a {@link conveneAnalyzer}, so logs
+ * with millions of records are analyzed in one pass without holding them in memory.
+ * In the UI the import runs on a background thread; without a UI, {@link #launch(String[])}
+ * prints the report of each file given on the command line.
+ */
+public class pullAnalysis implements tool {
+
+    /** Main panel to be inserted in a tab of the larger application. */
+    private JPanel mainPanel;
+
+    private JTextArea reportArea;
+    private JButton importBtn;
+
+    public pullAnalysis() {
+    }
+
+    /**
+     * Analyzes one exported log file (newest-first records, as the game exports them).
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static conveneAnalyzer analyze(Path file) throws IOException {
+        conveneAnalyzer analyzer = new conveneAnalyzer();
+        conveneReader.read(file, analyzer);
+        return analyzer;
+    }
+
+    /**
+     * Sets up the Swing UI: an import button and a text report below it.
+     */
+    private void setupUI() {
+        mainPanel = new JPanel(new BorderLayout(0, 10));
+        mainPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("Pull Analysis");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        importBtn = new JButton("Import Convene Records...");
+        importBtn.addActionListener(e -> chooseAndImport());
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(titleLabel);
+        topPanel.add(importBtn);
+
+        reportArea = new JTextArea("Import an exported convene log (JSON or CSV) to see per-banner statistics.");
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+
+        mainPanel.add(topPanel, BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+    }
+
+    private void chooseAndImport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Convene records (*.json, *.csv)", "json", "csv"));
+        if (chooser.showOpenDialog(mainPanel) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+
+        importBtn.setEnabled(false);
+        reportArea.setText("Reading " + file.getName() + "...");
+
+        // Parsing large logs takes a while; keep it off the Event Dispatch Thread
+        new SwingWorker<conveneAnalyzer, Void>() {
+            @Override
+            protected conveneAnalyzer doInBackground() throws IOException {
+                return analyze(file.toPath());
+            }
+
+            @Override
+            protected void done() {
+                importBtn.setEnabled(true);
+                try {
+                    List<String> lines = get().report();
+                    reportArea.setText(file.getName() + "\n" + String.join("\n", lines));
+                    reportArea.setCaretPosition(0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    reportArea.setText("Could not import " + file.getName() + ":\n" + e.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Returns the UI panel so it can be embedded in a tab (e.g. "Pull Analysis"),
+     * building it on first use. Must be called on the Event Dispatch Thread.
+     */
+    public JPanel getMainPanel() {
+        if (mainPanel == null) {
+            setupUI();
+        }
+        return mainPanel;
+    }
+
+    // ========== Implementation of 'tool' Interface ==========
+
+    @Override
+    public String getToolName() {
+        return "pullAnalysis";
+    }
+
+    @Override
+    public JComponent createPanel() {
+        return getMainPanel();
+    }
+
+    @Override
+    public int launch(String[] args) {
+        return conveneCli.run(args, System.out, System.err);
+    }
 }
@@ -0,0 +1,33 @@
+package tools;
+
+/**
+ * Registers the {@link pullAnalysis} tool.
+ */
+public class pullAnalysisProvider implements toolProvider {
+
+    @Override
+    public String getToolName() {
+        return "pullAnalysis";
+    }
+
+    @Override
+    public String getTitle() {
+        return "Pull Analysis";
+    }
+
+    @Override
+    public int getOrder() {
+        return 20;
+    }
+
+    @Override
+    public tool create() {
+        return new pullAnalysis();
+    }
+
+    @Override
+    public int launch(String[] args) {
+        // Same as pullAnalysis.launch, without loading the Swing tool
+        return conveneCli.run(args, System.out, System.err);
+    }
+}
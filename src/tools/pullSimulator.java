@@ -1,8 +1,10 @@
 package tools;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.random.RandomGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -20,6 +22,7 @@ import java.awt.event.ActionListener;
  * This class also provides a Swing UI with:
  *   - "Resonate 1"
  *   - "Resonate 10"
+ *   - "Resonate N" (any number of pulls, run in the background with a progress bar)
  *   - "History" (opens a new window with highlighted history and statistics).
  *
  * All "4★" results are shown in bold purple, and "5★"/"up!5★" in bold orange.
@@ -29,188 +32,386 @@ public class pullSimulator implements tool {
 
     // ========== Original Fields and Logic ==========
 
-    // Base rates for 4★ and 5★
-    private double base_4_rate = 0.085;
-    private double base_5_rate = 0.008;
+    // Pity state and pull logic (counters, featured rate, random source)
+    private pullEngine engine;
 
-    // Probability that a 5★ is featured. If you lose once (non-featured 5★),
-    // the next 5★ is guaranteed featured (featured_rate=1).
-    // After pulling a featured 5★, featured_rate goes back to 0.5.
-    private double featured_rate = 0.5;
+    // Record of all pull outcomes (cumulative), packed 2 bits per pull.
+    // Either on the heap (pullHistory) or in a memory-mapped file (pullLog, see openLog()).
+    private pullStore history = new pullHistory();
 
-    // Pity counters:
-    //  - counter_4: Number of consecutive pulls with no 4★ or 5★
-    //  - counter_5: Number of consecutive pulls with no 5★
-    private int counter_4;
-    private int counter_5;
+    // Running totals, updated as pulls are made
+    private pullStats stats = new pullStats();
 
-    // Random instance for generating probabilities
-    private Random random = new Random();
+    // Pity positions of every 5★/4★ and 50-50 outcomes by pity, updated as pulls are made
+    private pityHistogram pity = new pityHistogram();
 
-    // Record of all pull outcomes (cumulative)
-    private List<String> history = new ArrayList<>();
+    // Every pull event goes through here: history, stats and pity histogram first, then external subscribers
+    private pullDispatcher events = new pullDispatcher();
 
-    // Record of only the most recent batch of pulls
-    private List<String> lastPullResults = new ArrayList<>();
+    // Position in history where the most recent batch of pulls starts
+    private long lastPullStart;
+
+    // Changes whenever the history is cleared or replaced, so history windows can tell their rows are gone
+    private long historyGeneration;
+
+    // Size of the open log and time when its statistics were last checkpointed (see checkpointLog())
+    private long checkpointSize;
+    private long checkpointNanos;
 
     // ========== New UI Fields ==========
 
     /** Main panel to be inserted in a tab of your larger application. */
     private JPanel mainPanel;
 
+    // Buttons that start pulls; disabled while a "Resonate N" run is in progress
+    private JButton[] resonateButtons;
+
+    // Progress row of a "Resonate N" run (hidden otherwise)
+    private JPanel progressPanel;
+    private JProgressBar progressBar;
+    private JLabel progressLabel;
+
+    // The running "Resonate N" job, or null
+    private resonateWorker resonateWorker;
+
+    /** Pulls per chunk of a "Resonate N" run; the simulator lock is released between chunks. */
+    private static final int RESONATE_CHUNK = 50_000;
+
+    /** Runs at least this long use the skip-ahead sampler ({@link #pullTurbo(long)}). */
+    private static final long TURBO_MIN_PULLS = 1_000;
+
     /**
-     * Default constructor that initializes all counters to zero
-     * and sets up the UI.
+     * An open log's statistics are checkpointed after this many pulls or this much time with
+     * new pulls, so reopening it after a crash replays at most that much of the log.
+     */
+    private static final long CHECKPOINT_PULLS = 1 << 20;
+    private static final long CHECKPOINT_NANOS = 10_000_000_000L;
+
+    /**
+     * Default constructor that initializes all counters to zero.
+     * The UI is built on first use of {@link #getMainPanel()}.
      */
     public pullSimulator() {
-        this.counter_4 = 0;
-        this.counter_5 = 0;
-        setupUI();
+        this(new seededRandom());
     }
 
-    // ========== Original Core Methods (unchanged) ==========
+    /**
+     * Creates a simulator whose pulls are fully determined by the seed,
+     * so a session can be replayed exactly.
+     */
+    public pullSimulator(long seed) {
+        this(new seededRandom(seed));
+    }
 
     /**
-     * Increments both counters (4★, 5★). Used when a pull results in 3★.
+     * Creates a simulator that draws from the given random source
+     * (e.g. {@code RandomGenerator.of("L64X128MixRandom")}).
      */
-    private void addCount() {
-        this.counter_4++;
-        this.counter_5++;
+    public pullSimulator(RandomGenerator random) {
+        this.engine = new pullEngine(random);
+        events.add(history);
+        events.add(stats);
+        events.add(pity);
+        simMetrics.GLOBAL.trackHistory(history);
     }
 
+    // ========== Core Methods ==========
+
     /**
-     * Resets the 4★ pity counter to zero.
+     * Simulates a number of pulls and updates the history.
+     *
+     * Like every method that changes the session, this locks the simulator, so a background
+     * "Resonate N" run and calls from the Event Dispatch Thread never interleave within a batch.
+     *
+     * @param pulls the number of pulls to simulate
      */
-    private void reset_4() {
-        this.counter_4 = 0;
+    public synchronized void pull(int pulls) {
+        // The new batch starts where the previous one ended
+        lastPullStart = history.size();
+        runPulls(pulls, false);
     }
 
     /**
-     * Resets the 5★ pity counter to zero.
+     * Simulates a large number of pulls with the skip-ahead sampler (see
+     * {@link pullEngine#pullTurbo(long, pullListener)}) and appends them to the history.
+     * Runs of 3★ are added in bulk, so this is much faster than {@link #pull(int)} for big counts.
      */
-    private void reset_5() {
-        this.counter_5 = 0;
+    public synchronized void pullTurbo(long pulls) {
+        lastPullStart = history.size();
+        runPulls(pulls, true);
     }
 
     /**
-     * Calculates the current 5★ probability based on "soft pity".
+     * Appends pulls to the current batch without starting a new one, so a run split into
+     * chunks is still a single batch for {@link #result()}.
      */
-    private double get5Rate() {
-        int softPity = counter_5;
+    private synchronized void continuePulls(long pulls, boolean turbo) {
+        runPulls(pulls, turbo);
+    }
 
-        if (softPity <= 65) {
-            return base_5_rate;
-        } else if (softPity < 76) {
-            // from 66 to 75
-            double rate = base_5_rate + 0.08 * (softPity - 65);
-            return Math.min(1.0, rate);
-        } else if (softPity < 79) {
-            // from 76 to 78
-            // 0.8 = 0.08 * (75 - 65) is the total increment from the previous range
-            double rate = base_5_rate + 0.8 + 0.1 * (softPity - 75);
-            return Math.min(1.0, rate);
+    /**
+     * Runs one batch on the engine and reports it to {@link simMetrics}.
+     */
+    private void runPulls(long pulls, boolean turbo) {
+        long start = simMetrics.GLOBAL.startBatch();
+        long draws = engine.getDraws();
+        if (turbo) {
+            engine.pullTurbo(pulls, events);
         } else {
-            // Pull #79 guaranteed
-            return 1.0;
+            engine.pull(pulls, events);
+        }
+        simMetrics.GLOBAL.endBatch(start, pulls, engine.getDraws() - draws);
+
+        if (history instanceof pullLog) {
+            long pending = history.size() - checkpointSize;
+            if (pending >= CHECKPOINT_PULLS
+                    || (pending > 0 && System.nanoTime() - checkpointNanos >= CHECKPOINT_NANOS)) {
+                checkpointLog();
+            }
         }
     }
 
     /**
-     * Calculates the current 4★ probability based on "hard pity".
+     * Counts of each rarity over the whole history (indexed by result code).
      */
-    private double get4Rate() {
-        // If we are at 9 consecutive misses, then the next (10th) is forced 4★ if not 5★
-        return (counter_4 < 9) ? base_4_rate : 1.0;
+    private synchronized long[] getCounts() {
+        return new long[] { stats.getCount3(), stats.getCount4(), stats.getCount5(), stats.getCountUp5() };
     }
 
     /**
-     * Simulates a number of pulls and updates the history.
+     * Switches the history to the append-only log file at the given path and continues
+     * the session stored in it: pity counters are restored from the end of the log and the
+     * statistics from its checkpoint (see {@link pullLogCheckpoint}), replaying only the results
+     * logged after it. A new file is created if none exists.
      *
-     * @param pulls the number of pulls to simulate
+     * @throws IOException if the file cannot be opened or is not a pull log
      */
-    public void pull(int pulls) {
-        // Clear the previous pull batch record
-        lastPullResults.clear();
+    public synchronized void openLog(Path path) throws IOException {
+        pullLog log = pullLog.open(path);
+        closeLog();
+
+        replaceHistory(log);
+
+        engine.resumeFrom(log);
+        stats.reset();
+        pityHistogram restored = new pityHistogram();
+        long replayed = pullLogCheckpoint.restore(log, stats, restored);
+        replacePityHistogram(restored);
+        lastPullStart = log.size();
+        checkpointSize = log.size() - replayed;
+        checkpointNanos = System.nanoTime();
+    }
 
-        for (int i = 0; i < pulls; i++) {
-            double probability = random.nextDouble();
-            double chance5 = get5Rate();
+    /**
+     * Returns the path of the history log opened by {@link #openLog(Path)}, or null.
+     */
+    public synchronized Path getLogPath() {
+        return (history instanceof pullLog) ? ((pullLog) history).getPath() : null;
+    }
 
-            if (probability < chance5) {
-                // We pulled a 5★
-                double probFeatured = random.nextDouble();
-                if (probFeatured < featured_rate) {
-                    // Featured 5★
-                    lastPullResults.add("up!5★");
-                    history.add("up!5★");
+    /**
+     * Saves the statistics of the open log next to it. A failure only costs a longer
+     * {@link #openLog(Path)} next time, so it is reported and otherwise ignored.
+     */
+    private void checkpointLog() {
+        pullLog log = (pullLog) history;
+        checkpointSize = log.size();
+        checkpointNanos = System.nanoTime();
+        try {
+            pullLogCheckpoint.save(log, stats, pity);
+        } catch (IOException e) {
+            System.err.println("pullSimulator: could not save the checkpoint of " + log.getPath() + ": " + e);
+        }
+    }
 
-                    // Reset featured rate to 0.5
-                    featured_rate = 0.5;
-                } else {
-                    // Non-featured 5★, next 5★ is guaranteed featured
-                    lastPullResults.add("5★");
-                    history.add("5★");
+    /**
+     * Flushes and closes the history log opened by {@link #openLog(Path)}, if any,
+     * and starts a new, empty in-memory history.
+     */
+    public synchronized void closeLog() throws IOException {
+        if (!(history instanceof pullLog)) {
+            return;
+        }
+        checkpointLog();
+        pullLog log = (pullLog) history;
+        replaceHistory(new pullHistory());
+        resetHistory();
+        log.close();
+    }
 
-                    featured_rate = 1.0;
-                }
+    /**
+     * Saves the whole session (pity, featured guarantee, random state, history, stats, pity histogram)
+     * to a binary snapshot file (see {@link sessionSnapshot}).
+     */
+    public synchronized void saveSession(Path path) throws IOException {
+        sessionSnapshot.save(path, engine, history, stats, pity, lastPullStart);
+    }
 
-                // Reset 5★ and 4★ counters
-                reset_5();
-                reset_4();
+    /**
+     * Replaces the current session with one saved by {@link #saveSession(Path)}.
+     * If the snapshot has no random state, the current random source keeps being used.
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public synchronized void loadSession(Path path) throws IOException {
+        sessionSnapshot snapshot = sessionSnapshot.load(path);
+        closeLog();
 
-            } else {
-                // Check 4★
-                double chance4 = get4Rate();
+        replaceHistory(snapshot.getHistory());
+        events.replace(stats, snapshot.getStats());
+        stats = snapshot.getStats();
 
-                if (probability < (chance5 + chance4)) {
-                    // 4★
-                    lastPullResults.add("4★");
-                    history.add("4★");
+        engine = snapshot.createEngine(engine.getRandom());
+        lastPullStart = snapshot.getLastPullStart();
+        replacePityHistogram(snapshot.getPityHistogram());
+    }
 
-                    reset_4();
-                    // We got a 4★, so keep counting up for 5★ pity
-                    counter_5++;
+    /**
+     * Swaps in another history store in the history's place among the listeners, and moves
+     * the history memory metric over to it.
+     */
+    private void replaceHistory(pullStore next) {
+        historyGeneration++;
+        events.replace(history, next);
+        simMetrics.GLOBAL.untrackHistory(history);
+        history = next;
+        simMetrics.GLOBAL.trackHistory(history);
+    }
 
-                } else {
-                    // 3★
-                    lastPullResults.add("3★");
-                    history.add("3★");
+    /**
+     * Swaps in a histogram rebuilt from a restored history, keeping the subscription order.
+     */
+    private void replacePityHistogram(pityHistogram rebuilt) {
+        events.replace(pity, rebuilt);
+        pity = rebuilt;
+    }
 
-                    addCount();
-                }
-            }
+    /**
+     * Subscribes to every pull made by this simulator (see {@link pullListener}).
+     */
+    public void addPullListener(pullListener listener) {
+        events.add(listener);
+    }
+
+    public void removePullListener(pullListener listener) {
+        events.remove(listener);
+    }
+
+    /**
+     * Runs {@code trials} independent sessions of {@code pullsPerTrial} pulls in parallel,
+     * each starting from fresh pity. Does not touch this simulator's own state or history.
+     */
+    public batchResult simulateMany(long trials, int pullsPerTrial) {
+        return pullBatch.simulateMany(trials, pullsPerTrial);
+    }
+
+    /**
+     * Same as {@link #simulateMany(long, int)}, but reproducible from the given seed.
+     */
+    public batchResult simulateMany(long trials, int pullsPerTrial, long seed) {
+        return pullBatch.simulateMany(trials, pullsPerTrial, seed);
+    }
+
+    /**
+     * Exact distribution of the number of pulls until the next featured 5★,
+     * starting from this simulator's current pity state (see {@link pityChain}).
+     */
+    public double[] pullsToFeaturedDistribution() {
+        int counter5;
+        boolean guaranteed;
+        synchronized (this) {
+            counter5 = engine.getCounter5();
+            guaranteed = engine.isGuaranteed();
         }
+        return pityChain.pullsToFeatured(counter5, guaranteed);
     }
 
     /**
-     * Returns the record of the most recent batch of pulls.
+     * Exact distribution of the number of featured 5★ obtained in the next {@code pulls} pulls,
+     * starting from this simulator's current pity state (see {@link pityChain}).
      */
-    public List<String> result() {
-        return lastPullResults;
+    public double[] featuredCountDistribution(int pulls) {
+        int counter5;
+        boolean guaranteed;
+        synchronized (this) {
+            counter5 = engine.getCounter5();
+            guaranteed = engine.isGuaranteed();
+        }
+        return pityChain.featuredCountAfter(pulls, counter5, guaranteed);
     }
 
     /**
-     * Clears all pulling history and resets pity counters and featured rate.
+     * Returns a copy of the most recent batch of pulls, taken under the simulator lock.
      */
-    public void resetHistory() {
+    public synchronized List<String> result() {
+        pullHistory batch = new pullHistory();
+        for (long i = lastPullStart, end = history.size(); i < end; i++) {
+            batch.add(history.get(i));
+        }
+        return batch.asList();
+    }
+
+    /**
+     * Clears all pulling history and resets pity counters and featured rate. If a log is open
+     * ({@link #openLog(Path)}), the log file is cleared too; call {@link #closeLog()} first
+     * to keep it.
+     */
+    public synchronized void resetHistory() {
         history.clear();
-        lastPullResults.clear();
-        counter_4 = 0;
-        counter_5 = 0;
-        featured_rate = 0.5;
+        historyGeneration++;
+        lastPullStart = 0;
+        stats.reset();
+        pity.clear();
+        engine.reset();
+        if (history instanceof pullLog) {
+            checkpointLog();
+        }
     }
 
     /**
      * Returns the cumulative record of all pulls so far.
      */
     public List<String> getHistory() {
-        return history;
+        return history.asList();
+    }
+
+    /**
+     * Returns a copy of the whole history, taken under the simulator lock. Later pulls,
+     * resets and history switches ({@link #openLog}, {@link #loadSession}) do not affect it.
+     */
+    public synchronized pullHistory copyHistory() {
+        return history.copy();
+    }
+
+    /**
+     * Returns a copy of the running statistics over the whole history, taken under the simulator lock.
+     */
+    public synchronized pullStats getStats() {
+        return stats.copy();
+    }
+
+    /**
+     * Returns an immutable copy of the current pity state, which other threads can keep
+     * or continue from (e.g. in a {@link pullSession}).
+     *
+     * @throws IllegalArgumentException if the random source is not a {@link seededRandom}
+     */
+    public synchronized pityState getPityState() {
+        return pityState.of(engine);
+    }
+
+    /**
+     * Returns a copy of the pity-position histogram over the whole history, taken under the simulator lock.
+     */
+    public synchronized pityHistogram getPityHistogram() {
+        return pity.copy();
     }
 
     // ========== New UI-Related Methods ==========
 
     /**
-     * Sets up the Swing UI for this simulator: three buttons ("Resonate 1", "Resonate 10", "History").
+     * Sets up the Swing UI for this simulator: four buttons ("Resonate 1", "Resonate 10", "Resonate N",
+     * "History") and the progress row of a "Resonate N" run.
      */
     private void setupUI() {
         mainPanel = new JPanel();
@@ -230,6 +431,7 @@ public class pullSimulator implements tool {
                 pull(1);  // use existing logic
 
                 // For the popup, highlight the single result with HTML
+                List<String> lastPullResults = result();
                 if (!lastPullResults.isEmpty()) {
                     String highlighted = getHighlightedResult(lastPullResults.get(0));
                     JOptionPane.showMessageDialog(
@@ -260,7 +462,7 @@ public class pullSimulator implements tool {
 
                 // Show a popup with all 10 results, each highlighted
                 StringBuilder sb = new StringBuilder("<html>");
-                for (String item : lastPullResults) {
+                for (String item : result()) {
                     sb.append(getHighlightedResult(item)).append("<br/>");
                 }
                 sb.append("</html>");
@@ -274,7 +476,55 @@ public class pullSimulator implements tool {
             }
         });
 
-        // Button 3: History (opens a new window)
+        // Button 3: Resonate N (runs in the background)
+        JButton resonateNBtn = new JButton("Resonate N");
+        resonateNBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        resonateNBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String input = JOptionPane.showInputDialog(mainPanel, "Number of pulls:", "Resonate N",
+                        JOptionPane.QUESTION_MESSAGE);
+                if (input == null) {
+                    return;
+                }
+                long pulls;
+                try {
+                    pulls = Long.parseLong(input.trim().replace("_", "").replace(",", ""));
+                } catch (NumberFormatException ex) {
+                    pulls = 0;
+                }
+                if (pulls <= 0) {
+                    JOptionPane.showMessageDialog(mainPanel, "Please enter a positive number.",
+                            "Resonate N", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                startResonate(pulls);
+            }
+        });
+
+        // Progress row for Resonate N: bar, running counts and a Cancel button
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressLabel = new JLabel(" ");
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (resonateWorker != null) {
+                    resonateWorker.cancel(false);
+                }
+            }
+        });
+        progressPanel = new JPanel();
+        progressPanel.add(progressBar);
+        progressPanel.add(cancelBtn);
+        progressPanel.add(progressLabel);
+        progressPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        progressPanel.setVisible(false);
+
+        resonateButtons = new JButton[] { resonate1Btn, resonate10Btn, resonateNBtn };
+
+        // Button 4: History (opens a new window)
         JButton historyBtn = new JButton("History");
         historyBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
         historyBtn.addActionListener(new ActionListener() {
@@ -291,89 +541,207 @@ public class pullSimulator implements tool {
         mainPanel.add(Box.createRigidArea(new Dimension(0, 5)));
         mainPanel.add(resonate10Btn);
         mainPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+        mainPanel.add(resonateNBtn);
+        mainPanel.add(Box.createRigidArea(new Dimension(0, 5)));
         mainPanel.add(historyBtn);
+        mainPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        mainPanel.add(progressPanel);
+    }
+
+    /**
+     * Starts a background run of {@code pulls} pulls and shows its progress row.
+     * Must be called on the Event Dispatch Thread.
+     */
+    private void startResonate(long pulls) {
+        for (JButton button : resonateButtons) {
+            button.setEnabled(false);
+        }
+        progressBar.setValue(0);
+        progressLabel.setText(" ");
+        progressPanel.setVisible(true);
+
+        resonateWorker = new resonateWorker(pulls);
+        resonateWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        resonateWorker.execute();
+    }
+
+    /**
+     * Runs a "Resonate N" job off the Event Dispatch Thread.
+     *
+     * The pulls are made in chunks of RESONATE_CHUNK. After each chunk the worker publishes the
+     * counts it produced; Swing coalesces publishes that arrive faster than the UI can repaint
+     * into a single process() call. Cancelling stops the run after the current chunk; the pulls
+     * made so far stay in the history.
+     */
+    private class resonateWorker extends SwingWorker<long[], long[]> {
+
+        private final long pulls;
+
+        // Counts of the run so far, only touched on the Event Dispatch Thread
+        private final long[] shown = new long[4];
+
+        // Counts over the whole history when the run started; set under the simulator lock
+        private long[] start;
+
+        resonateWorker(long pulls) {
+            this.pulls = pulls;
+        }
+
+        @Override
+        protected long[] doInBackground() {
+            boolean turbo = pulls >= TURBO_MIN_PULLS;
+            synchronized (pullSimulator.this) {
+                start = getCounts();
+                lastPullStart = history.size();
+            }
+            long[] previous = start;
+
+            long done = 0;
+            while (done < pulls) {
+                long chunk = Math.min(RESONATE_CHUNK, pulls - done);
+                long[] now;
+                synchronized (pullSimulator.this) {
+                    // Checked under the lock, so once done() has read the totals no chunk follows
+                    if (isCancelled()) {
+                        break;
+                    }
+                    continuePulls(chunk, turbo);
+                    now = getCounts();
+                }
+                done += chunk;
+
+                long[] delta = new long[4];
+                for (int i = 0; i < delta.length; i++) {
+                    delta[i] = now[i] - previous[i];
+                }
+                previous = now;
+                publish(delta);
+                setProgress((int) (done * 100 / pulls));
+            }
+
+            long[] total = new long[4];
+            for (int i = 0; i < total.length; i++) {
+                total[i] = previous[i] - start[i];
+            }
+            return total;
+        }
+
+        @Override
+        protected void process(List<long[]> chunks) {
+            for (long[] delta : chunks) {
+                for (int i = 0; i < shown.length; i++) {
+                    shown[i] += delta[i];
+                }
+            }
+            progressLabel.setText("<html>" + formatCounts(shown) + "</html>");
+        }
+
+        @Override
+        protected void done() {
+            resonateWorker = null;
+            progressPanel.setVisible(false);
+            for (JButton button : resonateButtons) {
+                button.setEnabled(true);
+            }
+
+            String message;
+            if (isCancelled()) {
+                // process() may not have seen the last chunks; the simulator has the final state
+                message = "Cancelled. Pulls made so far are kept in the history:<br/>" + formatCounts(runTotals());
+            } else {
+                try {
+                    message = "Resonated " + pulls + " times:<br/>" + formatCounts(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(mainPanel, "Resonate N failed: " + e.getCause(),
+                            "Resonate N", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
+            JOptionPane.showMessageDialog(mainPanel, "<html>" + message + "</html>",
+                    "Resonate N", JOptionPane.INFORMATION_MESSAGE);
+        }
+
+        /**
+         * Counts added by this run, read under the simulator lock. Waits for a chunk in progress.
+         */
+        private long[] runTotals() {
+            synchronized (pullSimulator.this) {
+                if (start == null) {
+                    // Cancelled before it started
+                    return new long[4];
+                }
+                long[] totals = getCounts();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] -= start[i];
+                }
+                return totals;
+            }
+        }
+    }
+
+    /**
+     * One-line HTML summary of result counts (indexed by result code), with 4★/5★ highlighted.
+     */
+    private String formatCounts(long[] counts) {
+        return "3★ " + counts[pullEngine.RESULT_3]
+                + " &nbsp; " + getHighlightedResult("4★") + " " + counts[pullEngine.RESULT_4]
+                + " &nbsp; " + getHighlightedResult("5★") + " " + counts[pullEngine.RESULT_5]
+                + " &nbsp; " + getHighlightedResult("up!5★") + " " + counts[pullEngine.RESULT_UP5];
     }
 
     /**
      * Opens a new window showing the entire pull history with:
      *  - 4★ in bold purple
      *  - 5★ or up!5★ in bold orange
-     * Also shows total statistics (total pulls, # of 3★, 4★, 5★, up!5★) on the left,
+     * Also shows total statistics (total pulls, # of 3★, 4★, 5★, up!5★, pity and 50-50) on the left,
      * while the history list is on the right in a scrollable panel.
      */
     private void showHistoryWindow() {
         JFrame historyFrame = new JFrame("Pull History");
+        historyFrame.getRootPane().putClientProperty(edtWatchdog.TOOL_PROPERTY, getToolName());
         historyFrame.setSize(600, 400);
         historyFrame.setLocationRelativeTo(mainPanel);
         historyFrame.setLayout(new BorderLayout());
 
         // ========== Statistics Panel on the LEFT ==========
 
-        // Gather stats
-        int total = history.size();
-        int count3 = 0, count4 = 0, count5 = 0, countUp5 = 0;
-        for (String pullResult : history) {
-            switch (pullResult) {
-                case "3★":    count3++;   break;
-                case "4★":    count4++;   break;
-                case "5★":    count5++;   break;
-                case "up!5★": countUp5++; break;
-            }
-        }
-
         JPanel statsPanel = new JPanel();
         statsPanel.setLayout(new BoxLayout(statsPanel, BoxLayout.Y_AXIS));
         statsPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
 
-        JLabel totalLabel = new JLabel("Total Pulls: " + total);
-        JLabel threeLabel = new JLabel("3-Star: " + count3);
-        JLabel fourLabel  = new JLabel("4-Star: " + count4);
-        JLabel fiveLabel  = new JLabel("5-Star: " + count5);
-        JLabel up5Label   = new JLabel("up!5-Star: " + countUp5);
-
+        // One label per line of getStatsLines(); filled from the running stats (no history scan)
         Font statsFont = new Font("Arial", Font.PLAIN, 14);
-        totalLabel.setFont(statsFont);
-        threeLabel.setFont(statsFont);
-        fourLabel.setFont(statsFont);
-        fiveLabel.setFont(statsFont);
-        up5Label.setFont(statsFont);
-
-        statsPanel.add(totalLabel);
-        statsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        statsPanel.add(threeLabel);
-        statsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        statsPanel.add(fourLabel);
-        statsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        statsPanel.add(fiveLabel);
-        statsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        statsPanel.add(up5Label);
+        String[] statsLines = getStatsLines();
+        JLabel[] statsLabels = new JLabel[statsLines.length];
+        for (int i = 0; i < statsLines.length; i++) {
+            statsLabels[i] = new JLabel(statsLines[i]);
+            statsLabels[i].setFont(statsFont);
+            if (i > 0) {
+                statsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+            }
+            statsPanel.add(statsLabels[i]);
+        }
 
         historyFrame.add(statsPanel, BorderLayout.WEST);
 
         // ========== History List on the RIGHT (Scrollable) ==========
 
-        DefaultListModel<String> historyModel = new DefaultListModel<>();
-        for (String pullResult : history) {
-            // Convert each raw result into HTML-labeled text for highlighting
-            historyModel.addElement(getHighlightedResultHTML(pullResult));
-        }
+        // The model reads the history in place and the renderer paints colors itself, so only
+        // the visible rows are ever decoded (no per-pull HTML strings) and nothing is copied,
+        // even for a log of many millions of pulls.
+        historyListModel historyModel = newHistoryModel();
+        JList<Integer> historyList = new JList<>(historyModel);
+        historyList.setCellRenderer(new historyCellRenderer());
 
-        JList<String> historyList = new JList<>(historyModel);
-        historyList.setCellRenderer(new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(
-                    JList<?> list,
-                    Object value,
-                    int index,
-                    boolean isSelected,
-                    boolean cellHasFocus
-            ) {
-                JLabel label = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                // Wrap the partial HTML in <html> so it renders
-                label.setText("<html>" + (String) value + "</html>");
-                return label;
-            }
-        });
+        // Fixed row height: JList will not measure every row to lay out the list
+        historyList.setPrototypeCellValue(pullEngine.RESULT_UP5);
 
         JScrollPane scrollPane = new JScrollPane(historyList);
         historyFrame.add(scrollPane, BorderLayout.CENTER);
@@ -384,15 +752,39 @@ public class pullSimulator implements tool {
         resetBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                resetHistory();
+                Path log = getLogPath();
+                if (log != null) {
+                    // The history is backed by a file: clearing it cannot be undone
+                    Object[] options = {"Clear Log File", "Detach Log", "Cancel"};
+                    int choice = JOptionPane.showOptionDialog(historyFrame,
+                            "The history is recorded in " + log + ".\n"
+                                    + "Clear the log file too, or detach it (keeping the file) and reset?",
+                            "Reset History", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE,
+                            null, options, options[2]);
+                    if (choice == 0) {
+                        resetHistory();
+                    } else if (choice == 1) {
+                        try {
+                            // Closing the log starts an empty in-memory history
+                            closeLog();
+                        } catch (IOException ex) {
+                            JOptionPane.showMessageDialog(historyFrame, "Could not close " + log + ": " + ex,
+                                    "Reset History", JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                    } else {
+                        return;
+                    }
+                } else {
+                    resetHistory();
+                }
                 historyModel.clear();
 
                 // Also update the stats labels
-                totalLabel.setText("Total Pulls: 0");
-                threeLabel.setText("3★: 0");
-                fourLabel.setText("4★: 0");
-                fiveLabel.setText("5★: 0");
-                up5Label.setText("up!5★: 0");
+                String[] lines = getStatsLines();
+                for (int i = 0; i < lines.length; i++) {
+                    statsLabels[i].setText(lines[i]);
+                }
             }
         });
 
@@ -403,6 +795,23 @@ public class pullSimulator implements tool {
         historyFrame.setVisible(true);
     }
 
+    /**
+     * Formats the running statistics, one line per label in the history window.
+     */
+    private synchronized String[] getStatsLines() {
+        return new String[] {
+                "Total Pulls: " + stats.getTotal(),
+                "3-Star: " + stats.getCount3(),
+                "4-Star: " + stats.getCount4(),
+                "5-Star: " + stats.getCount5(),
+                "up!5-Star: " + stats.getCountUp5(),
+                String.format("Avg 5-Star Pity: %.1f", stats.getAveragePity5()),
+                String.format("Avg 4-Star Pity: %.1f", pity.getAveragePity4()),
+                String.format("50-50 Win Rate: %.1f%%", stats.getFiftyFiftyWinRate() * 100),
+                "Longest Drought: " + stats.getLongestDrought()
+        };
+    }
+
     /**
      * Returns an **HTML snippet** (without <html> wrapper) that highlights
      * 4★ in purple/bold, 5★ or up!5★ in orange/bold.
@@ -431,9 +840,106 @@ public class pullSimulator implements tool {
     }
 
     /**
-     * Returns the UI panel so it can be embedded in a tab (e.g. "Resonate Simulation").
+     * Creates a list model over the history as it is now.
+     */
+    private synchronized historyListModel newHistoryModel() {
+        return new historyListModel(history, historyGeneration);
+    }
+
+    /**
+     * Read-only list model over the first results of the history (as many as it held when the
+     * window opened), as result codes, decoding only the rows that are shown. Each row is read
+     * under the simulator lock; once the history has been cleared or replaced, rows read as null
+     * and the list empties itself.
+     */
+    private class historyListModel extends AbstractListModel<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient pullStore history;
+        private final long generation;
+        private int size;
+
+        historyListModel(pullStore history, long generation) {
+            this.history = history;
+            this.generation = generation;
+            this.size = (int) Math.min(Integer.MAX_VALUE, history.size());
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public Integer getElementAt(int index) {
+            synchronized (pullSimulator.this) {
+                if (historyGeneration == generation) {
+                    return history.get(index);
+                }
+            }
+            SwingUtilities.invokeLater(this::clear);
+            return null;
+        }
+
+        /**
+         * Empties the list after the simulator's history has been reset.
+         */
+        void clear() {
+            int oldSize = size;
+            size = 0;
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+        }
+    }
+
+    /**
+     * Renders a result code with the same highlighting as getHighlightedResultHTML():
+     * 4★ in bold purple, 5★ or up!5★ in bold orange, but without going through HTML.
+     */
+    private static class historyCellRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        private static final Color PURPLE = new Color(0x800080);
+        private static final Color ORANGE = new Color(0xFFA500);
+
+        @Override
+        public Component getListCellRendererComponent(
+                JList<?> list,
+                Object value,
+                int index,
+                boolean isSelected,
+                boolean cellHasFocus
+        ) {
+            if (value == null) {
+                // A row of a history that has been reset since (see historyListModel)
+                return super.getListCellRendererComponent(list, "", index, isSelected, cellHasFocus);
+            }
+            int result = (Integer) value;
+            JLabel label = (JLabel) super.getListCellRendererComponent(
+                    list, pullEngine.label(result), index, isSelected, cellHasFocus);
+
+            if (result == pullEngine.RESULT_3) {
+                label.setFont(list.getFont());
+                return label;
+            }
+
+            label.setFont(list.getFont().deriveFont(Font.BOLD));
+            if (!isSelected) {
+                label.setForeground(result == pullEngine.RESULT_4 ? PURPLE : ORANGE);
+            }
+            return label;
+        }
+    }
+
+    /**
+     * Returns the UI panel so it can be embedded in a tab (e.g. "Resonate Simulation"),
+     * building it on first use. Must be called on the Event Dispatch Thread.
      */
     public JPanel getMainPanel() {
+        if (mainPanel == null) {
+            setupUI();
+        }
         return mainPanel;
     }
 
@@ -445,9 +951,26 @@ public class pullSimulator implements tool {
     }
 
     @Override
-    public void launch() {
-        // If you have a console version or a separate usage scenario, put code here.
-        // Otherwise, the main UI usage is through getMainPanel().
-        System.out.println("pullSimulator launched (console mode).");
+    public JComponent createPanel() {
+        return getMainPanel();
+    }
+
+    @Override
+    public int launch(String[] args) {
+        // Console mode: a batch run of the command-line simulator (see pullCli.USAGE).
+        // The main UI usage is through getMainPanel().
+        return pullCli.run(args, System.out, System.err);
+    }
+
+    @Override
+    public void dispose() {
+        if (resonateWorker != null) {
+            resonateWorker.cancel(false);
+        }
+        try {
+            closeLog();
+        } catch (IOException e) {
+            System.err.println("pullSimulator: could not close the history log: " + e.getMessage());
+        }
     }
 }
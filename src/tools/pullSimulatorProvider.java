@@ -0,0 +1,33 @@
+package tools;
+
+/**
+ * Registers the {@link pullSimulator} tool.
+ */
+public class pullSimulatorProvider implements toolProvider {
+
+    @Override
+    public String getToolName() {
+        return "pullSimulator";
+    }
+
+    @Override
+    public String getTitle() {
+        return "Pull Simulator";
+    }
+
+    @Override
+    public int getOrder() {
+        return 10;
+    }
+
+    @Override
+    public tool create() {
+        return new pullSimulator();
+    }
+
+    @Override
+    public int launch(String[] args) {
+        // Same as pullSimulator.launch, without loading the Swing tool
+        return pullCli.run(args, System.out, System.err);
+    }
+}
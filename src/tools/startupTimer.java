@@ -0,0 +1,206 @@
+package tools;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Records where startup time goes: JVM start to {@code main}, the first EDT task, the window
+ * becoming visible, per-tool construction in {@link toolMgr}, the first painted frame and the
+ * latency of the first user interaction.
+ *
+ * Recording is always on and costs a {@link System#nanoTime()} per event. The breakdown is
+ * written at exit when the {@value #PROPERTY} system property is set:
+ * {@code -Dwuwa.startup=startup.json} writes JSON to that file, {@code -Dwuwa.startup=log}
+ * (or any value not ending in ".json") prints a table to stderr.
+ *
+ * All times are in milliseconds since JVM start.
+ */
+public final class startupTimer {
+
+    public static final String PROPERTY = "wuwa.startup";
+
+    // Timeline origin: the first call into this class, which MainUI makes at the top of main
+    private static final long originNanos = System.nanoTime();
+    private static final long originMillis = System.currentTimeMillis();
+
+    private static final List<event> events = new ArrayList<>();
+    private static final Set<String> marked = new HashSet<>();
+    private static boolean interactionProbe;
+
+    private startupTimer() {
+    }
+
+    /**
+     * One recorded point or interval on the startup timeline.
+     */
+    private record event(String name, long startNanos, long endNanos, String thread) {
+    }
+
+    /**
+     * @return the current time on the startup timeline, for {@link #record(String, long)}
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a point in time. Only the first mark of each name is kept.
+     */
+    public static void mark(String name) {
+        long t = now();
+        synchronized (events) {
+            if (marked.add(name)) {
+                events.add(new event(name, t, t, Thread.currentThread().getName()));
+            }
+        }
+    }
+
+    /**
+     * Records an interval that started at {@code startNanos} (from {@link #now()}) and ends now.
+     */
+    public static void record(String name, long startNanos) {
+        long t = now();
+        synchronized (events) {
+            events.add(new event(name, startNanos, t, Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Records the latency of the first mouse press or key press: from the moment the input
+     * happened until the EDT has finished handling it. Must be called on the Event Dispatch Thread.
+     */
+    public static void installInteractionProbe() {
+        if (interactionProbe) {
+            return;
+        }
+        interactionProbe = true;
+        Toolkit toolkit = Toolkit.getDefaultToolkit();
+        AWTEventListener probe = new AWTEventListener() {
+            @Override
+            public void eventDispatched(AWTEvent e) {
+                if (e.getID() != MouseEvent.MOUSE_PRESSED && e.getID() != KeyEvent.KEY_PRESSED) {
+                    return;
+                }
+                toolkit.removeAWTEventListener(this);
+                // How long the input waited in the queue before dispatch started
+                long waitedNanos = Math.max(0, System.currentTimeMillis() - ((InputEvent) e).getWhen()) * 1_000_000L;
+                long start = now() - waitedNanos;
+                // Listeners of this event run after this probe; measure once they are done
+                EventQueue.invokeLater(() -> record("firstInteraction", start));
+            }
+        };
+        toolkit.addAWTEventListener(probe, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+    }
+
+    /**
+     * Writes the breakdown at exit if {@value #PROPERTY} is set.
+     */
+    public static void dumpOnExit() {
+        String target = System.getProperty(PROPERTY);
+        if (target == null || target.isEmpty()) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                dump(target);
+            } catch (IOException e) {
+                System.err.println("startupTimer: could not write " + target + ": " + e.getMessage());
+            }
+        }, "startupTimer-dump"));
+    }
+
+    /**
+     * Writes the breakdown as JSON if {@code target} ends in ".json", otherwise as a table to stderr.
+     */
+    public static void dump(String target) throws IOException {
+        if (target.toLowerCase(Locale.ROOT).endsWith(".json")) {
+            Files.writeString(Path.of(target), toJson(), StandardCharsets.UTF_8);
+        } else {
+            print(System.err);
+        }
+    }
+
+    /**
+     * Returns the breakdown as one JSON object:
+     * {@code {"jvmStartToMain":ms,"events":[{"name":..,"at":ms,"duration":ms,"thread":..},...]}},
+     * events in the order they started.
+     */
+    public static String toJson() {
+        double offset = jvmStartToOrigin();
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"jvmStartToMain\":").append(format(offset)).append(",\"events\":[");
+        List<event> snapshot = snapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            event e = snapshot.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"").append(escape(e.name()))
+                    .append("\",\"at\":").append(format(offset + millis(e.startNanos() - originNanos)))
+                    .append(",\"duration\":").append(format(millis(e.endNanos() - e.startNanos())))
+                    .append(",\"thread\":\"").append(escape(e.thread())).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Prints the breakdown as a table, one event per line.
+     */
+    public static void print(PrintStream out) {
+        double offset = jvmStartToOrigin();
+        out.println("Startup timeline (ms since JVM start)");
+        for (event e : snapshot()) {
+            double duration = millis(e.endNanos() - e.startNanos());
+            out.printf(Locale.ROOT, "%10s %10s  %s [%s]%n",
+                    format(offset + millis(e.startNanos() - originNanos)),
+                    (e.endNanos() == e.startNanos()) ? "" : "+" + format(duration),
+                    e.name(), e.thread());
+        }
+        out.flush();
+    }
+
+    private static List<event> snapshot() {
+        List<event> snapshot;
+        synchronized (events) {
+            snapshot = new ArrayList<>(events);
+        }
+        snapshot.sort((a, b) -> Long.compare(a.startNanos(), b.startNanos()));
+        return snapshot;
+    }
+
+    /**
+     * Milliseconds from JVM start to the timeline origin. Loads java.management, so it is
+     * only called when the breakdown is written.
+     */
+    private static double jvmStartToOrigin() {
+        return originMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
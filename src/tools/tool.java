@@ -1,24 +1,51 @@
 package tools;
 
+import javax.swing.JComponent;
+
+/**
+ * Common interface for all tools in WuWa Integrated Tool.
+ *
+ * Tools are found through a {@link toolProvider} and created only when they are first used.
+ * The constructor should stay cheap and must not build Swing components: it may run on a
+ * background thread (pre-warming) or in a headless process ({@link #launch(String[])}).
+ * The UI is built by {@link #createPanel()}, on the Event Dispatch Thread.
+ */
 public interface tool {
 
+    /**
+     * @return A short identifier or name for the tool.
+     */
     String getToolName();
 
-    void launch();
+    /**
+     * Builds the tool's UI panel. Called at most once, on the Event Dispatch Thread,
+     * when the tool is first shown (or pre-warmed).
+     */
+    JComponent createPanel();
+
+    /**
+     * Runs the tool without a UI (e.g. {@code MainLauncher --tool <name> [args]}).
+     *
+     * @param args tool-specific arguments
+     * @return the process exit code, 0 on success
+     */
+    int launch(String[] args);
+
+    /**
+     * Called on the Event Dispatch Thread when the tool's tab becomes visible.
+     */
+    default void onShown() {
+    }
+
+    /**
+     * Called on the Event Dispatch Thread when another tab is selected.
+     */
+    default void onHidden() {
+    }
 
     /**
-     * Common interface for all tools in WuWa Integrated Tool.
-     * Each tool must implement a way to launch or run itself.
+     * Called when the application closes: stop background work and release files.
      */
-    public interface Tool {
-        /**
-         * @return A short identifier or name for the tool.
-         */
-        String getToolName();
-
-        /**
-         * Launch or run the tool.
-         */
-        void launch();
+    default void dispose() {
     }
 }
@@ -0,0 +1,109 @@
+package tools;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The installed tools, discovered through {@link toolProvider} services, and running one
+ * without a UI.
+ *
+ * This class has no AWT/Swing references, so a console run ({@code --tool <name>}, see
+ * {@code MainLauncher}) never loads the UI toolkit. {@link toolMgr} builds the tabs of the
+ * main window on top of it.
+ */
+public final class toolCatalog {
+
+    private final List<toolDescriptor> tools = new ArrayList<>();
+
+    /**
+     * Finds the tools on the class path of this class's loader.
+     */
+    public static toolCatalog discover() {
+        return discover(toolCatalog.class.getClassLoader());
+    }
+
+    /**
+     * Finds the tools listed in {@code META-INF/services/tools.toolProvider} of the given
+     * loader's class path, sorted by {@link toolProvider#getOrder()} and title. Only the
+     * providers are instantiated; a provider that fails to load is reported and skipped.
+     */
+    public static toolCatalog discover(ClassLoader loader) {
+        List<toolProvider> providers = new ArrayList<>();
+        Iterator<toolProvider> it = ServiceLoader.load(toolProvider.class, loader).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) {
+                    break;
+                }
+                providers.add(it.next());
+            } catch (ServiceConfigurationError e) {
+                System.err.println("toolMgr: skipping tool provider: " + e.getMessage());
+            }
+        }
+        providers.sort(Comparator.comparingInt(toolProvider::getOrder).thenComparing(toolProvider::getTitle));
+
+        toolCatalog catalog = new toolCatalog();
+        for (toolProvider provider : providers) {
+            catalog.register(provider);
+        }
+        return catalog;
+    }
+
+    /**
+     * Adds a tool. Nothing of the tool is loaded here; see {@link toolProvider}.
+     *
+     * @return this catalog, for chaining
+     */
+    public toolCatalog register(toolProvider provider) {
+        tools.add(new toolDescriptor(provider));
+        return this;
+    }
+
+    public List<toolDescriptor> getTools() {
+        return Collections.unmodifiableList(tools);
+    }
+
+    /**
+     * Returns the descriptor of the tool with the given name, or null.
+     */
+    public toolDescriptor find(String toolName) {
+        for (toolDescriptor descriptor : tools) {
+            if (descriptor.getToolName().equals(toolName)) {
+                return descriptor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a tool without a UI (see {@link toolProvider#launch(String[])}).
+     *
+     * @return the tool's exit code, or 2 if there is no tool with that name
+     */
+    public int launch(String toolName, String[] args) {
+        toolDescriptor descriptor = find(toolName);
+        if (descriptor == null) {
+            System.err.println("Unknown tool: " + toolName);
+            printTools(System.err);
+            return 2;
+        }
+        return descriptor.getProvider().launch(args);
+    }
+
+    /**
+     * Prints the names of the installed tools on one line.
+     */
+    public void printTools(PrintStream out) {
+        out.print("Available tools:");
+        for (toolDescriptor descriptor : tools) {
+            out.print(" " + descriptor.getToolName());
+        }
+        out.println();
+    }
+}
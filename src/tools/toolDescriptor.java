@@ -0,0 +1,115 @@
+package tools;
+
+import javax.swing.JComponent;
+
+/**
+ * What {@link toolMgr} knows about a tool before it is used: the {@link toolProvider} that
+ * describes it. The tool class is neither loaded nor initialized until the tool is first needed.
+ */
+public final class toolDescriptor {
+
+    private final toolProvider provider;
+
+    // Created on first use; the tool may be created by the pre-warm thread
+    private volatile tool instance;
+    // Built on the Event Dispatch Thread
+    private JComponent panel;
+    // Why create() or build() failed; kept so the tool is not retried until clearFailure()
+    private volatile Throwable failure;
+
+    public toolDescriptor(toolProvider provider) {
+        this.provider = provider;
+    }
+
+    public toolProvider getProvider() {
+        return provider;
+    }
+
+    public String getTitle() {
+        return provider.getTitle();
+    }
+
+    public String getToolName() {
+        return provider.getToolName();
+    }
+
+    public boolean isPrewarm() {
+        return provider.isPrewarm();
+    }
+
+    public boolean isBuilt() {
+        return panel != null;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Returns what the last attempt to create or build the tool threw, or null.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Forgets a failed attempt, so the next {@link #create()} or {@link #build()} tries again.
+     */
+    void clearFailure() {
+        failure = null;
+    }
+
+    /**
+     * Creates the tool if that has not happened yet, without building its UI.
+     * Safe to call from any thread; used to move class loading and initialization
+     * off the Event Dispatch Thread. After a failure, throws without trying again.
+     */
+    synchronized tool create() {
+        if (instance == null) {
+            checkNotFailed();
+            long start = startupTimer.now();
+            try {
+                instance = provider.create();
+            } catch (RuntimeException | LinkageError e) {
+                failure = e;
+                throw e;
+            }
+            startupTimer.record("tool." + provider.getToolName() + ".create", start);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the tool and its panel if that has not happened yet. Must run on the
+     * Event Dispatch Thread. After a failure, throws without trying again.
+     */
+    JComponent build() {
+        if (panel == null) {
+            tool t = create();
+            checkNotFailed();
+            long start = startupTimer.now();
+            try {
+                panel = t.createPanel();
+            } catch (RuntimeException | LinkageError e) {
+                failure = e;
+                throw e;
+            }
+            startupTimer.record("tool." + provider.getToolName() + ".panel", start);
+        }
+        return panel;
+    }
+
+    private void checkNotFailed() {
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException(provider.getToolName() + " failed to load earlier", cause);
+        }
+    }
+
+    /**
+     * Returns the tool instance, or null if it has not been created.
+     */
+    public tool getInstance() {
+        return instance;
+    }
+}
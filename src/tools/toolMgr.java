@@ -1,4 +1,274 @@
 package tools;
 
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Registry of the tools shown as tabs in the main window.
+ *
+ * Tools are discovered through {@link toolProvider} services (see {@link toolCatalog}) and
+ * built lazily: each tab starts with a light placeholder, and the tool and its panel are
+ * created only when the tab is first selected. The first frame therefore costs the same no
+ * matter how many tools are installed.
+ *
+ * After the first frame has been painted, tools marked for pre-warming are prepared in idle
+ * time: they are created on a background thread, then each panel is built on the
+ * Event Dispatch Thread in its own event, so repaints and input are handled in between.
+ */
 public class toolMgr {
+
+    private final toolCatalog catalog;
+    // Live read-only view of the catalog's tools
+    private final List<toolDescriptor> tools;
+    private boolean prewarm = true;
+
+    private JTabbedPane tabs;
+    private boolean prewarmStarted;
+    private int shownIndex = -1;
+    // Tools whose failure has been reported and shown in their tab (Event Dispatch Thread only)
+    private final Set<toolDescriptor> failuresShown = new HashSet<>();
+
+    public toolMgr() {
+        this(new toolCatalog());
+    }
+
+    public toolMgr(toolCatalog catalog) {
+        this.catalog = catalog;
+        this.tools = catalog.getTools();
+    }
+
+    /**
+     * Finds the tools on the class path of this class's loader.
+     */
+    public static toolMgr discover() {
+        return discover(toolMgr.class.getClassLoader());
+    }
+
+    /**
+     * Finds the tools of the given loader's class path (see {@link toolCatalog#discover(ClassLoader)}).
+     */
+    public static toolMgr discover(ClassLoader loader) {
+        long start = startupTimer.now();
+        toolMgr mgr = new toolMgr(toolCatalog.discover(loader));
+        startupTimer.record("toolMgr.discover", start);
+        return mgr;
+    }
+
+    /**
+     * Adds a tool. Nothing of the tool is loaded here; see {@link toolProvider}.
+     *
+     * @return this registry, for chaining
+     */
+    public toolMgr register(toolProvider provider) {
+        catalog.register(provider);
+        return this;
+    }
+
+    /**
+     * Enables or disables building tools in idle time after the first frame (default on).
+     */
+    public void setPrewarm(boolean prewarm) {
+        this.prewarm = prewarm;
+    }
+
+    public List<toolDescriptor> getTools() {
+        return tools;
+    }
+
+    /**
+     * Returns the descriptor of the tool with the given name, or null.
+     */
+    public toolDescriptor find(String toolName) {
+        return catalog.find(toolName);
+    }
+
+    /**
+     * Runs a tool without a UI (see {@link toolCatalog#launch(String, String[])}).
+     *
+     * @return the tool's exit code, or 2 if there is no tool with that name
+     */
+    public int launch(String toolName, String[] args) {
+        return catalog.launch(toolName, args);
+    }
+
+    /**
+     * Adds one tab per registered tool to the pane, each with a placeholder until the tool is built.
+     * Must be called on the Event Dispatch Thread.
+     */
+    public void installTabs(JTabbedPane tabs) {
+        this.tabs = tabs;
+        for (toolDescriptor descriptor : tools) {
+            tabs.addTab(descriptor.getTitle(), new placeholder(descriptor.getTitle()));
+        }
+        tabs.addChangeListener(e -> selectionChanged(tabs.getSelectedIndex()));
+    }
+
+    /**
+     * Returns the tool in the given tab, building it first if needed.
+     * Must be called on the Event Dispatch Thread.
+     */
+    public tool getTool(int index) {
+        ensureBuilt(index);
+        return tools.get(index).getInstance();
+    }
+
+    /**
+     * Calls {@link tool#dispose()} on every tool that has been created.
+     */
+    public void dispose() {
+        for (toolDescriptor descriptor : tools) {
+            tool instance = descriptor.getInstance();
+            if (instance != null) {
+                try {
+                    instance.dispose();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void selectionChanged(int index) {
+        if (shownIndex >= 0 && shownIndex != index && tools.get(shownIndex).isBuilt()) {
+            tools.get(shownIndex).getInstance().onHidden();
+        }
+        shownIndex = -1;
+        scheduleBuild(index);
+    }
+
+    /**
+     * Builds the tool of a tab after the current event, so its placeholder is painted first,
+     * then tells the tool it is shown.
+     */
+    private void scheduleBuild(int index) {
+        if (index < 0) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            ensureBuilt(index);
+            if (tabs.getSelectedIndex() == index && shownIndex != index && tools.get(index).isBuilt()) {
+                shownIndex = index;
+                tools.get(index).getInstance().onShown();
+            }
+        });
+    }
+
+    /**
+     * Builds the tool of a tab and puts it in place of the placeholder. A tool that failed is
+     * not tried again (its error is already shown) until the user presses Retry.
+     */
+    private void ensureBuilt(int index) {
+        toolDescriptor descriptor = tools.get(index);
+        if (descriptor.isBuilt()) {
+            return;
+        }
+        if (descriptor.isFailed()) {
+            showFailure(index);
+            return;
+        }
+        JComponent panel;
+        try {
+            panel = descriptor.build();
+            panel.putClientProperty(edtWatchdog.TOOL_PROPERTY, descriptor.getToolName());
+        } catch (RuntimeException | LinkageError e) {
+            showFailure(index);
+            return;
+        }
+        if (tabs != null) {
+            tabs.setComponentAt(index, panel);
+        }
+    }
+
+    /**
+     * Reports a tool's failure once and shows it in its tab, with a button to try again.
+     */
+    private void showFailure(int index) {
+        toolDescriptor descriptor = tools.get(index);
+        if (!failuresShown.add(descriptor)) {
+            return;
+        }
+        Throwable failure = descriptor.getFailure();
+        System.err.println("toolMgr: could not load " + descriptor.getToolName() + ":");
+        failure.printStackTrace();
+        if (tabs == null) {
+            return;
+        }
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel("Could not load " + descriptor.getTitle() + ": " + failure, SwingConstants.CENTER),
+                BorderLayout.CENTER);
+        JButton retry = new JButton("Retry");
+        retry.addActionListener(e -> {
+            descriptor.clearFailure();
+            failuresShown.remove(descriptor);
+            tabs.setComponentAt(index, new placeholder(descriptor.getTitle()));
+            scheduleBuild(index);
+        });
+        JPanel buttons = new JPanel();
+        buttons.add(retry);
+        panel.add(buttons, BorderLayout.SOUTH);
+        tabs.setComponentAt(index, panel);
+    }
+
+    /**
+     * Called once the first placeholder has been painted: builds the visible tool and
+     * starts pre-warming the others.
+     */
+    private void onFirstPaint() {
+        if (prewarmStarted) {
+            return;
+        }
+        prewarmStarted = true;
+        scheduleBuild(tabs.getSelectedIndex());
+        if (!prewarm) {
+            return;
+        }
+
+        Thread loader = new Thread(() -> {
+            for (int i = 0; i < tools.size(); i++) {
+                toolDescriptor descriptor = tools.get(i);
+                if (!descriptor.isPrewarm()) {
+                    continue;
+                }
+                int index = i;
+                try {
+                    descriptor.create();
+                } catch (RuntimeException | LinkageError e) {
+                    // Recorded in the descriptor; report it and show it in the tab now
+                    SwingUtilities.invokeLater(() -> showFailure(index));
+                    continue;
+                }
+                SwingUtilities.invokeLater(() -> ensureBuilt(index));
+            }
+            SwingUtilities.invokeLater(() -> startupTimer.mark("prewarm.done"));
+        }, "toolMgr-prewarm");
+        loader.setDaemon(true);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    /**
+     * Stand-in for a tool that has not been built yet. The first one to be painted
+     * signals that the main window is on screen.
+     */
+    private class placeholder extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        placeholder(String title) {
+            super(new BorderLayout());
+            add(new JLabel("Loading " + title + "...", SwingConstants.CENTER), BorderLayout.CENTER);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (!prewarmStarted) {
+                startupTimer.mark("firstPaint");
+                SwingUtilities.invokeLater(toolMgr.this::onFirstPaint);
+            }
+        }
+    }
 }
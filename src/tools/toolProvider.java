@@ -0,0 +1,54 @@
+package tools;
+
+/**
+ * Service interface through which {@link toolMgr} discovers tools with {@link java.util.ServiceLoader}.
+ *
+ * A tool jar lists its providers in {@code META-INF/services/tools.toolProvider}. Providers
+ * only describe a tool; the tool class itself is loaded and initialized when {@link #create()}
+ * is first called, so optional tools cost nothing at startup until they are used.
+ * Implementations need a public no-argument constructor and must not reference the tool
+ * class outside {@link #create()}.
+ */
+public interface toolProvider {
+
+    /**
+     * @return the tool's identifier, as returned by {@link tool#getToolName()}
+     */
+    String getToolName();
+
+    /**
+     * @return the tab title
+     */
+    String getTitle();
+
+    /**
+     * Tabs are sorted by this value, then by title.
+     */
+    default int getOrder() {
+        return 100;
+    }
+
+    /**
+     * Whether the tool may be created in idle time before its tab is selected.
+     * Return false for tools that are expensive and rarely used.
+     */
+    default boolean isPrewarm() {
+        return true;
+    }
+
+    /**
+     * Creates the tool. May be called on any thread.
+     */
+    tool create();
+
+    /**
+     * Runs the tool without a UI ({@code --tool <name> [args]}). Creates the tool and calls
+     * {@link tool#launch(String[])}; override to run a console entry point directly, so the
+     * tool class and its Swing dependencies are not loaded.
+     *
+     * @return the process exit code, 0 on success
+     */
+    default int launch(String[] args) {
+        return create().launch(args);
+    }
+}
@@ -0,0 +1,194 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class conveneAnalyzerTest {
+
+    private static final String FEATURED = "Jiyan";
+    private static final String STANDARD = "Verina";
+
+    /**
+     * Chronological pulls on the featured resonator banner:
+     * 10 × 3★, lost 50-50 at pity 11, 4★, 4 × 3★, guaranteed at pity 6, 2 × 3★, won at pity 3.
+     */
+    private static final int[] PULLS = {
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 5,
+            4, 3, 3, 3, 3, 5,
+            3, 3, 5
+    };
+    private static final String[] NAMES = {
+            "", "", "", "", "", "", "", "", "", "", STANDARD,
+            "", "", "", "", "", FEATURED,
+            "", "", FEATURED
+    };
+
+    @Test
+    void newestFirstResolvesPityAndFiftyFifty() {
+        conveneAnalyzer analyzer = new conveneAnalyzer();
+        for (int i = PULLS.length - 1; i >= 0; i--) {
+            analyzer.accept("", conveneAnalyzer.POOL_FEATURED_RESONATOR, PULLS[i], NAMES[i]);
+        }
+        analyzer.finish();
+
+        bannerSummary summary = analyzer.getSummaries().iterator().next();
+        pityHistogram pity = summary.getPityHistogram();
+        assertEquals(PULLS.length, summary.getPulls());
+        assertEquals(1, pity.getCount5(11, pullEngine.FIFTY_LOST));
+        assertEquals(1, pity.getCount5(6, pullEngine.FIFTY_GUARANTEED));
+        assertEquals(1, pity.getCount5(3, pullEngine.FIFTY_WON));
+        assertEquals(1, summary.getFiftyFiftyWins());
+        assertEquals(1, summary.getFiftyFiftyLosses());
+        assertEquals(1, summary.getGuaranteedFeatured());
+        // 4★ one pull after the first 5★
+        assertEquals(1, pity.getCount4(1));
+        assertEquals(1, summary.getCount4());
+    }
+
+    @Test
+    void newestFirstMatchesChronological() {
+        List<int[]> pulls = simulatedPulls(50_000);
+
+        conveneAnalyzer chronological = new conveneAnalyzer(false, Set.of(STANDARD));
+        for (int[] p : pulls) {
+            chronological.accept("a", conveneAnalyzer.POOL_FEATURED_RESONATOR, p[0], name(p));
+        }
+        chronological.finish();
+
+        conveneAnalyzer newestFirst = new conveneAnalyzer(true, Set.of(STANDARD));
+        for (int i = pulls.size() - 1; i >= 0; i--) {
+            newestFirst.accept("a", conveneAnalyzer.POOL_FEATURED_RESONATOR, pulls.get(i)[0], name(pulls.get(i)));
+        }
+        newestFirst.finish();
+
+        assertSameSummary(chronological.getSummaries().iterator().next(), newestFirst.getSummaries().iterator().next());
+    }
+
+    @Test
+    void newestFirstMatchesEnginePity() {
+        // The engine's own pity positions and 50-50 outcomes are the ground truth
+        pityHistogram truth = new pityHistogram();
+        List<int[]> pulls = new ArrayList<>();
+        pullEngine engine = new pullEngine(21L);
+        engine.pull(50_000, (result, pity5, pity4, fiftyFifty) -> {
+            truth.onPull(result, pity5, pity4, fiftyFifty);
+            pulls.add(new int[]{quality(result), result});
+        });
+
+        conveneAnalyzer analyzer = new conveneAnalyzer(true, Set.of(STANDARD));
+        for (int i = pulls.size() - 1; i >= 0; i--) {
+            analyzer.accept("", conveneAnalyzer.POOL_FEATURED_RESONATOR, pulls.get(i)[0], name(pulls.get(i)));
+        }
+        analyzer.finish();
+
+        pityHistogram analyzed = analyzer.getSummaries().iterator().next().getPityHistogram();
+        for (int k = 1; k <= pityHistogram.MAX_PITY_5; k++) {
+            for (int f = pullEngine.FIFTY_WON; f <= pullEngine.FIFTY_GUARANTEED; f++) {
+                assertEquals(truth.getCount5(k, f), analyzed.getCount5(k, f), "5★ at pity " + k + ", 50-50 " + f);
+            }
+        }
+        for (int k = 1; k <= pityHistogram.MAX_PITY_4; k++) {
+            assertEquals(truth.getCount4(k), analyzed.getCount4(k), "4★ at pity " + k);
+        }
+    }
+
+    @Test
+    void accountsAreKeptApart() {
+        conveneAnalyzer analyzer = new conveneAnalyzer();
+        // Newest first, interleaved: each account has one 5★ after 4 and 2 pulls
+        String[] players = {"a", "b", "a", "b", "a", "a"};
+        int[] qualities = {5, 5, 3, 3, 3, 3};
+        for (int i = 0; i < players.length; i++) {
+            analyzer.accept(players[i], conveneAnalyzer.POOL_FEATURED_RESONATOR, qualities[i],
+                    (qualities[i] == 5) ? FEATURED : "");
+        }
+        analyzer.finish();
+
+        pityHistogram pity = analyzer.getSummaries().iterator().next().getPityHistogram();
+        assertEquals(1, pity.getCount5(4));
+        assertEquals(1, pity.getCount5(2));
+    }
+
+    @Test
+    void negativePoolTypeIsCountedAsUnknown() {
+        conveneAnalyzer analyzer = new conveneAnalyzer();
+        // Newest first: a 5★ after 3 pulls, read on pool type -1 and 0 alike
+        int[] pools = {-1, 0, -1};
+        int[] qualities = {5, 3, 3};
+        for (int i = 0; i < pools.length; i++) {
+            analyzer.accept("", pools[i], qualities[i], "");
+        }
+        analyzer.finish();
+
+        List<bannerSummary> summaries = new ArrayList<>(analyzer.getSummaries());
+        assertEquals(1, summaries.size());
+        assertEquals(0, summaries.get(0).getPoolType());
+        assertEquals(3, summaries.get(0).getPulls());
+        assertEquals(1, summaries.get(0).getPityHistogram().getCount5(3));
+    }
+
+    @Test
+    void csvQuotedCellsMaySpanLines() throws IOException {
+        String csv = "\uFEFFplayerId,cardPoolType,qualityLevel,name,note\r\n"
+                + "a,1,5,\"" + FEATURED + "\",\"first line\r\nsecond, \"\"quoted\"\" line\"\r\n"
+                + "\n"
+                + "a,1,3,x,\"\nstarts with a newline\"\n"
+                + "a,1,4,y,\"not a record:\nb,1,5,Verina\"\r"
+                + "a,1,3,z,";
+        conveneAnalyzer analyzer = new conveneAnalyzer();
+        conveneReader.readCsv(new StringReader(csv), analyzer);
+
+        assertEquals(4, analyzer.getRecords());
+        bannerSummary summary = analyzer.getSummaries().iterator().next();
+        assertEquals(1, summary.getCountUp5());
+        assertEquals(1, summary.getCount4());
+        assertEquals(0, summary.getCount5());
+        // Newest first: the 5★ comes after the 3 older pulls
+        assertEquals(1, summary.getPityHistogram().getCount5(4));
+    }
+
+    private static List<int[]> simulatedPulls(int count) {
+        List<int[]> pulls = new ArrayList<>(count);
+        pullEngine engine = new pullEngine(20L);
+        for (int i = 0; i < count; i++) {
+            int result = engine.pullOne();
+            pulls.add(new int[]{quality(result), result});
+        }
+        return pulls;
+    }
+
+    private static int quality(int result) {
+        return (result >= pullEngine.RESULT_5) ? 5 : (result == pullEngine.RESULT_4) ? 4 : 3;
+    }
+
+    private static String name(int[] pull) {
+        if (pull[1] == pullEngine.RESULT_UP5) {
+            return FEATURED;
+        }
+        return (pull[1] == pullEngine.RESULT_5) ? STANDARD : "";
+    }
+
+    private static void assertSameSummary(bannerSummary expected, bannerSummary actual) {
+        assertEquals(expected.getPulls(), actual.getPulls());
+        assertEquals(expected.getCount4(), actual.getCount4());
+        assertEquals(expected.getCount5(), actual.getCount5());
+        assertEquals(expected.getCountUp5(), actual.getCountUp5());
+        assertEquals(expected.getFiftyFiftyWins(), actual.getFiftyFiftyWins());
+        assertEquals(expected.getFiftyFiftyLosses(), actual.getFiftyFiftyLosses());
+        assertEquals(expected.getGuaranteedFeatured(), actual.getGuaranteedFeatured());
+        assertEquals(expected.getLongestLossStreak(), actual.getLongestLossStreak());
+        for (int k = 1; k <= pityHistogram.MAX_PITY_5; k++) {
+            assertEquals(expected.getPityHistogram().getCount5(k), actual.getPityHistogram().getCount5(k), "5★ at pity " + k);
+        }
+        for (int k = 1; k <= pityHistogram.MAX_PITY_4; k++) {
+            assertEquals(expected.getPityHistogram().getCount4(k), actual.getPityHistogram().getCount4(k), "4★ at pity " + k);
+        }
+    }
+}
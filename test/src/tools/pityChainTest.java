@@ -0,0 +1,88 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The exact distributions of {@link pityChain} must match Monte Carlo runs of {@link pullEngine}.
+ */
+class pityChainTest {
+
+    private static final int TRIALS = 200_000;
+
+    @Test
+    void distributionsSumToOne() {
+        for (int c5 = 0; c5 < pityTable.COUNTER_5_SIZE; c5++) {
+            assertEquals(1.0, sum(pityChain.pullsToNext5(c5)), 1e-12, "counter_5 " + c5);
+            assertEquals(1.0, sum(pityChain.pullsToFeatured(c5, false)), 1e-12, "counter_5 " + c5);
+            assertEquals(1.0, sum(pityChain.pullsToFeatured(c5, true)), 1e-12, "counter_5 " + c5);
+        }
+        assertEquals(1.0, sum(pityChain.featuredCountAfter(300, 0, false)), 1e-9);
+    }
+
+    @Test
+    void pullsToFeaturedMatchesMonteCarlo() {
+        double[] exact = pityChain.pullsToFeatured(0, false);
+        long[] counts = new long[exact.length];
+        pullEngine engine = new pullEngine(11L);
+        for (int t = 0; t < TRIALS; t++) {
+            engine.reset();
+            int pulls = 1;
+            while (engine.pullOne() != pullEngine.RESULT_UP5) {
+                pulls++;
+            }
+            counts[pulls]++;
+        }
+
+        assertDistribution(exact, counts);
+        double mean = 0.0;
+        for (int k = 0; k < counts.length; k++) {
+            mean += (double) k * counts[k] / TRIALS;
+        }
+        assertEquals(pityChain.mean(exact), mean, 0.2);
+    }
+
+    @Test
+    void featuredCountAfterMatchesMonteCarlo() {
+        int pulls = 200;
+        int counter5 = 30;
+        double[] exact = pityChain.featuredCountAfter(pulls, counter5, true);
+        long[] counts = new long[exact.length + 1];
+        pullEngine engine = new pullEngine(12L);
+        for (int t = 0; t < TRIALS; t++) {
+            engine.restore(0, counter5, true);
+            int featured = 0;
+            for (int i = 0; i < pulls; i++) {
+                if (engine.pullOne() == pullEngine.RESULT_UP5) {
+                    featured++;
+                }
+            }
+            counts[Math.min(featured, counts.length - 1)]++;
+        }
+
+        assertEquals(0, counts[counts.length - 1], "more featured 5★ than the chain allows");
+        assertDistribution(exact, counts);
+    }
+
+    /**
+     * Every bucket within 5 standard deviations of its binomial count.
+     */
+    private static void assertDistribution(double[] exact, long[] counts) {
+        for (int k = 0; k < exact.length; k++) {
+            double expected = exact[k] * TRIALS;
+            double sigma = Math.sqrt(TRIALS * exact[k] * (1 - exact[k]));
+            assertTrue(Math.abs(counts[k] - expected) <= 5 * sigma + 1.0,
+                    "bucket " + k + ": " + counts[k] + " vs expected " + expected);
+        }
+    }
+
+    private static double sum(double[] dist) {
+        double total = 0.0;
+        for (double p : dist) {
+            total += p;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,129 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bucketing of {@link pityHistogram}: counted live from the engine's pity positions, it must
+ * equal the histogram derived from the stored results, and merge/replay/state must preserve it.
+ */
+class pityHistogramTest {
+
+    @Test
+    void knownSequence() {
+        pullHistory history = new pullHistory();
+        history.addThrees(2);
+        history.add(pullEngine.RESULT_5);      // lost at 3
+        history.add(pullEngine.RESULT_4);      // 4★ at 1
+        history.add(pullEngine.RESULT_3);
+        history.add(pullEngine.RESULT_UP5);    // guaranteed at 3
+        history.add(pullEngine.RESULT_UP5);    // won at 1
+        history.addThrees(200);
+        history.add(pullEngine.RESULT_4);      // past both ranges: last buckets
+
+        pityHistogram pity = pityHistogram.of(history);
+        assertEquals(history.size(), pity.getPulls());
+        assertEquals(1, pity.getCount5(3, pullEngine.FIFTY_LOST));
+        assertEquals(1, pity.getCount5(3, pullEngine.FIFTY_GUARANTEED));
+        assertEquals(1, pity.getCount5(1, pullEngine.FIFTY_WON));
+        assertEquals(3, pity.getTotal5());
+        assertEquals(1, pity.getFiftyFifty(pullEngine.FIFTY_WON));
+        assertEquals(0.0, pity.getWinRate(3), 0.0);
+        assertEquals(1.0, pity.getWinRate(1), 0.0);
+        assertTrue(Double.isNaN(pity.getWinRate(2)));
+        assertEquals(7.0 / 3, pity.getAveragePity5(), 1e-12);
+
+        assertEquals(1, pity.getCount4(1));
+        assertEquals(1, pity.getCount4(pityHistogram.MAX_PITY_4));
+        assertEquals(2, pity.getTotal4());
+    }
+
+    @Test
+    void listenerMatchesStoredResults() {
+        for (boolean turbo : new boolean[]{false, true}) {
+            pullEngine engine = new pullEngine(21L);
+            pullHistory history = new pullHistory();
+            pityHistogram live = new pityHistogram();
+            pullDispatcher events = new pullDispatcher();
+            events.add(history);
+            events.add(live);
+            if (turbo) {
+                engine.pullTurbo(300_000, events);
+            } else {
+                engine.pull(300_000, events);
+            }
+            assertSameHistogram(pityHistogram.of(history), live);
+        }
+    }
+
+    @Test
+    void replayContinuesFromAnyPoint() {
+        pullHistory history = new pullHistory();
+        new pullEngine(5L).pull(50_000, history);
+        pityHistogram whole = pityHistogram.of(history);
+
+        for (long split : new long[]{1, 79, 80, 81, 12_345, 49_999}) {
+            pullHistory head = new pullHistory();
+            for (long i = 0; i < split; i++) {
+                head.add(history.get(i));
+            }
+            pityHistogram pity = pityHistogram.of(head);
+            pity.replay(history, split);
+            assertSameHistogram(whole, pity);
+        }
+    }
+
+    @Test
+    void mergeAddsAndCopyIsIndependent() {
+        pityHistogram a = new pityHistogram();
+        pityHistogram b = new pityHistogram();
+        new pullEngine(1L).pull(20_000, a);
+        new pullEngine(2L).pull(30_000, b);
+
+        pityHistogram merged = a.copy();
+        merged.merge(b);
+        assertEquals(50_000, merged.getPulls());
+        assertEquals(a.getTotal5() + b.getTotal5(), merged.getTotal5());
+        for (int k = 1; k <= pityHistogram.MAX_PITY_5; k++) {
+            assertEquals(a.getCount5(k) + b.getCount5(k), merged.getCount5(k));
+        }
+        for (int k = 1; k <= pityHistogram.MAX_PITY_4; k++) {
+            assertEquals(a.getCount4(k) + b.getCount4(k), merged.getCount4(k));
+        }
+
+        a.clear();
+        assertEquals(0, a.getPulls());
+        assertEquals(0, a.getTotal5());
+        assertEquals(50_000, merged.getPulls());
+    }
+
+    @Test
+    void stateRoundTrip() {
+        pityHistogram pity = new pityHistogram();
+        new pullEngine(9L).pull(40_000, pity);
+
+        ByteBuffer state = ByteBuffer.allocate(pityHistogram.BYTES);
+        pity.write(state);
+        assertEquals(pityHistogram.BYTES, state.position());
+        state.flip();
+        pityHistogram read = new pityHistogram();
+        read.read(state);
+        assertSameHistogram(pity, read);
+    }
+
+    private static void assertSameHistogram(pityHistogram expected, pityHistogram actual) {
+        assertEquals(expected.getPulls(), actual.getPulls());
+        for (int k = 1; k <= pityHistogram.MAX_PITY_5; k++) {
+            for (int outcome = pullEngine.FIFTY_NONE; outcome <= pullEngine.FIFTY_GUARANTEED; outcome++) {
+                assertEquals(expected.getCount5(k, outcome), actual.getCount5(k, outcome), "5★ at " + k);
+            }
+        }
+        for (int k = 1; k <= pityHistogram.MAX_PITY_4; k++) {
+            assertEquals(expected.getCount4(k), actual.getCount4(k), "4★ at " + k);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link pityState} transitions must be the same pulls as {@link pullEngine} with a {@link seededRandom}.
+ */
+class pityStateTest {
+
+    private static final int STEPS = 1_000_000;
+
+    @Test
+    void nextMatchesEnginePullOne() {
+        pityState state = pityState.initial(2024L);
+        pullEngine engine = state.toEngine();
+        for (int i = 0; i < STEPS; i++) {
+            pullStep step = state.next(pityTable.DEFAULT);
+            assertEquals(engine.pullOne(), step.result(), "pull " + i);
+            state = step.state();
+        }
+        assertEquals(pityState.of(engine), state);
+    }
+
+    @Test
+    void pullReportsTheSameEventsAsEngine() {
+        pityState start = new pityState(3, 60, true, 77L);
+        pullEngine engine = start.toEngine();
+
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        engine.pull(100_000, recorder(expected));
+        pityState end = start.pull(100_000, pityTable.DEFAULT, recorder(actual));
+
+        assertEquals(expected, actual);
+        assertEquals(pityState.of(engine), end);
+    }
+
+    @Test
+    void stateIsNotChangedByPulling() {
+        pityState state = new pityState(1, 2, false, 5L);
+        state.pull(1000, pityTable.DEFAULT, (result, pity5, pity4, fiftyFifty) -> { });
+        state.next(pityTable.DEFAULT);
+        assertEquals(new pityState(1, 2, false, 5L), state);
+    }
+
+    @Test
+    void sessionSharedByThreadsEndsInSequentialState() throws Exception {
+        int threads = 4;
+        int batches = 2_000;
+        pullSession session = new pullSession(pityState.initial(9L));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int b = 0; b < batches; b++) {
+                        session.pull(10, (result, pity5, pity4, fiftyFifty) -> { });
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        pityState sequential = pityState.initial(9L).pull((long) threads * batches * 10, pityTable.DEFAULT,
+                (result, pity5, pity4, fiftyFifty) -> { });
+        assertEquals(sequential, session.getState());
+    }
+
+    @Test
+    void countersAreRangeChecked() {
+        assertThrows(IllegalArgumentException.class, () -> new pityState(pityTable.COUNTER_4_SIZE, 0, false, 0));
+        assertThrows(IllegalArgumentException.class, () -> new pityState(0, -1, false, 0));
+    }
+
+    private static pullListener recorder(List<String> events) {
+        return new pullListener() {
+            @Override
+            public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+                events.add(result + "/" + pity5 + "/" + pity4 + "/" + fiftyFifty);
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The integer thresholds of {@link pityTable} must decide exactly as the double compares
+ * they replaced: {@code nextDouble() < rate}, where nextDouble() is {@code (nextLong() >>> 11) * 2^-53}.
+ */
+class pityTableTest {
+
+    private static final double SCALE = 0x1.0p-53;
+
+    private static boolean oldCompare(long bits, double rate) {
+        return (bits >>> 11) * SCALE < rate;
+    }
+
+    @Test
+    void thresholdsMatchRateFormulas() {
+        pityTable table = pityTable.DEFAULT;
+        for (int c5 = 0; c5 < pityTable.COUNTER_5_SIZE; c5++) {
+            assertEquals(pityTable.toThreshold(pullEngine.get5Rate(c5)), table.threshold5(c5), "counter_5 " + c5);
+            for (int c4 = 0; c4 < pityTable.COUNTER_4_SIZE; c4++) {
+                double chance45 = pullEngine.get5Rate(c5) + pullEngine.get4Rate(c4);
+                assertEquals(pityTable.toThreshold(chance45), table.threshold45(c5, c4), "state " + c5 + "/" + c4);
+            }
+        }
+        assertEquals(pityTable.toThreshold(pullEngine.BASE_FEATURED_RATE), table.featuredThreshold());
+    }
+
+    @Test
+    void thresholdCompareEqualsDoubleCompareOnRandomDraws() {
+        SplittableRandom random = new SplittableRandom(42);
+        pityTable table = pityTable.DEFAULT;
+        for (int i = 0; i < 1_000_000; i++) {
+            long bits = random.nextLong();
+            int c5 = random.nextInt(pityTable.COUNTER_5_SIZE);
+            int c4 = random.nextInt(pityTable.COUNTER_4_SIZE);
+            long u = pityTable.draw(bits);
+
+            assertEquals(oldCompare(bits, pullEngine.get5Rate(c5)), u < table.threshold5(c5));
+            assertEquals(oldCompare(bits, pullEngine.get5Rate(c5) + pullEngine.get4Rate(c4)),
+                    u < table.threshold45(c5, c4));
+        }
+    }
+
+    @Test
+    void thresholdCompareEqualsDoubleCompareAtBoundaries() {
+        pityTable table = pityTable.DEFAULT;
+        for (int c5 = 0; c5 < pityTable.COUNTER_5_SIZE; c5++) {
+            double rate = pullEngine.get5Rate(c5);
+            long threshold = table.threshold5(c5);
+            // The draws on either side of the threshold, as raw 64-bit values
+            for (long u = Math.max(0, threshold - 2); u <= Math.min(pityTable.ONE - 1, threshold + 1); u++) {
+                long bits = u << 11;
+                assertEquals(oldCompare(bits, rate), u < threshold, "counter_5 " + c5 + ", u " + u);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Splitting and aggregation of {@link pullBatch}: a seeded run must not depend on the pool
+ * it runs on, and the folded result must equal pulling every trial one after another.
+ */
+class pullBatchTest {
+
+    @Test
+    void seededRunDoesNotDependOnParallelism() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool wide = new ForkJoinPool(8);
+        try {
+            for (boolean turbo : new boolean[]{false, true}) {
+                batchResult a = pullBatch.simulateMany(50_001, 90, new SplittableRandom(11), turbo, single);
+                batchResult b = pullBatch.simulateMany(50_001, 90, new SplittableRandom(11), turbo, wide);
+                assertSameResult(a, b);
+            }
+        } finally {
+            single.shutdown();
+            wide.shutdown();
+        }
+    }
+
+    @Test
+    void leafTaskMatchesSequentialTrials() {
+        // Up to one leaf (4096 trials) the batch draws from the given generator itself
+        int trials = 3_000;
+        int pulls = 120;
+        batchResult batch = pullBatch.simulateMany(trials, pulls, new SplittableRandom(5));
+
+        pullEngine engine = new pullEngine(new SplittableRandom(5));
+        long[] counts = new long[4];
+        long[] toFeatured = new long[batch.getPullsToFeatured().length];
+        long unresolved = 0;
+        for (int t = 0; t < trials; t++) {
+            engine.reset();
+            int since = 0;
+            for (int i = 0; i < pulls; i++) {
+                int result = engine.pullOne();
+                counts[result]++;
+                since++;
+                if (result == pullEngine.RESULT_UP5) {
+                    toFeatured[since]++;
+                    since = 0;
+                }
+            }
+            if (since > 0) {
+                unresolved++;
+            }
+        }
+
+        assertEquals(trials, batch.getTrials());
+        assertEquals(counts[pullEngine.RESULT_3], batch.getCount3());
+        assertEquals(counts[pullEngine.RESULT_4], batch.getCount4());
+        assertEquals(counts[pullEngine.RESULT_5], batch.getCount5());
+        assertEquals(counts[pullEngine.RESULT_UP5], batch.getCountUp5());
+        assertEquals(unresolved, batch.getUnresolvedTrials());
+        assertArrayEquals(toFeatured, batch.getPullsToFeatured());
+    }
+
+    @Test
+    void totalsAddUp() {
+        batchResult result = pullBatch.simulateMany(20_000, 160, 3L);
+        assertEquals(20_000, result.getTrials());
+        assertEquals(20_000L * 160, result.getTotalPulls());
+        assertEquals(result.getCount3() + result.getCount4() + result.getCount5() + result.getCountUp5(),
+                result.getTotalPulls());
+
+        long featured = 0;
+        for (long count : result.getPullsToFeatured()) {
+            featured += count;
+        }
+        assertEquals(result.getCountUp5(), featured);
+        assertEquals(result.getTotalPulls(), result.getPityHistogram().getPulls());
+    }
+
+    @Test
+    void emptyAndNegativeRuns() {
+        assertEquals(0, pullBatch.simulateMany(0, 160, 1L).getTotalPulls());
+        assertThrows(IllegalArgumentException.class, () -> pullBatch.simulateMany(-1, 160, 1L));
+        assertThrows(IllegalArgumentException.class, () -> pullBatch.simulateMany(10, -1, 1L));
+    }
+
+    private static void assertSameResult(batchResult expected, batchResult actual) {
+        assertEquals(expected.getTrials(), actual.getTrials());
+        assertEquals(expected.getCount3(), actual.getCount3());
+        assertEquals(expected.getCount4(), actual.getCount4());
+        assertEquals(expected.getCount5(), actual.getCount5());
+        assertEquals(expected.getCountUp5(), actual.getCountUp5());
+        assertEquals(expected.getUnresolvedTrials(), actual.getUnresolvedTrials());
+        assertArrayEquals(expected.getPullsToFeatured(), actual.getPullsToFeatured());
+    }
+}
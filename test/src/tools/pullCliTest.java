@@ -0,0 +1,99 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Argument handling, exit codes and reproducible output of {@link pullCli}.
+ */
+class pullCliTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        out.reset();
+        err.reset();
+        return pullCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String out() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String err() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void helpPrintsUsage() {
+        assertEquals(pullCli.EXIT_OK, run("--help"));
+        assertTrue(out().startsWith("Usage: pullCli"));
+    }
+
+    @Test
+    void invalidArgumentsAreUsageErrors() {
+        String[][] cases = {
+                {"--bogus"},
+                {"--trials"},
+                {"--bogus", "--trials"},
+                {"--trials", "ten"},
+                {"--trials", "0"},
+                {"--pulls", "-1"},
+                {"--banner", "standard"},
+                {"--featured-rate", "1.5"},
+                {"--format", "xml"},
+                {"--chunks", "0"},
+                {"--trials", String.valueOf(Long.MAX_VALUE), "--pulls", "2"},
+        };
+        for (String[] args : cases) {
+            assertEquals(pullCli.EXIT_USAGE, run(args), String.join(" ", args));
+            assertTrue(err().startsWith("pullCli: "), err());
+            assertEquals("", out(), String.join(" ", args));
+        }
+    }
+
+    @Test
+    void unknownOptionIsReportedBeforeMissingValue() {
+        run("--bogus");
+        assertTrue(err().startsWith("pullCli: unknown option: --bogus"), err());
+    }
+
+    @Test
+    void sameSeedPrintsSameOutput() {
+        assertEquals(pullCli.EXIT_OK, run("--trials", "5000", "--pulls", "80", "--seed", "7", "--chunks", "3"));
+        String first = out();
+        assertEquals(pullCli.EXIT_OK, run("--trials", "5000", "--pulls", "80", "--seed", "7", "--chunks", "3"));
+        assertEquals(first, out());
+    }
+
+    @Test
+    void chunkRowsAddUpToTotal() {
+        assertEquals(pullCli.EXIT_OK, run("--trials", "1001", "--pulls", "10", "--seed", "1", "--chunks", "4"));
+        String[] lines = out().trim().split("\\R");
+        assertEquals(1 + 4 + 1, lines.length);
+
+        long trials = 0;
+        long pulls = 0;
+        for (int i = 1; i <= 4; i++) {
+            String[] row = lines[i].split(",");
+            assertEquals(String.valueOf(i), row[0]);
+            trials += Long.parseLong(row[1]);
+            for (int c = 6; c <= 9; c++) {
+                pulls += Long.parseLong(row[c]);
+            }
+        }
+        String[] total = lines[5].split(",");
+        assertEquals("total", total[0]);
+        assertEquals(1001, trials);
+        assertEquals(1001, Long.parseLong(total[1]));
+        assertEquals(1001 * 10, pulls);
+    }
+}
@@ -0,0 +1,103 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Subscription order and changes to the subscribers of a {@link pullDispatcher}.
+ */
+class pullDispatcherTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    private pullListener named(String name) {
+        return new pullListener() {
+            @Override
+            public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+                calls.add(name + ":" + result);
+            }
+
+            @Override
+            public void onThrees(int count, int pity5, int pity4) {
+                calls.add(name + ":3x" + count);
+            }
+        };
+    }
+
+    @Test
+    void eventsReachListenersInSubscriptionOrder() {
+        pullDispatcher events = new pullDispatcher();
+        events.add(named("a"));
+        events.add(named("b"));
+        events.onPull(pullEngine.RESULT_4, 1, 0, pullEngine.FIFTY_NONE);
+        events.onThrees(5, 6, 5);
+        assertEquals(List.of("a:1", "b:1", "a:3x5", "b:3x5"), calls);
+    }
+
+    @Test
+    void removeStopsOnlyThatListener() {
+        pullDispatcher events = new pullDispatcher();
+        pullListener a = named("a");
+        events.add(a);
+        events.add(named("b"));
+        events.remove(a);
+        events.remove(named("not subscribed"));
+        events.onPull(pullEngine.RESULT_3, 1, 1, pullEngine.FIFTY_NONE);
+        assertEquals(List.of("b:0"), calls);
+    }
+
+    @Test
+    void replaceKeepsThePosition() {
+        pullDispatcher events = new pullDispatcher();
+        pullListener a = named("a");
+        events.add(a);
+        events.add(named("b"));
+        events.replace(a, named("c"));
+        events.onPull(pullEngine.RESULT_5, 70, 3, pullEngine.FIFTY_LOST);
+        assertEquals(List.of("c:2", "b:2"), calls);
+
+        calls.clear();
+        events.replace(a, named("d"));
+        events.onPull(pullEngine.RESULT_5, 70, 3, pullEngine.FIFTY_LOST);
+        assertEquals(List.of("c:2", "b:2", "d:2"), calls);
+    }
+
+    @Test
+    void changesDuringDispatchApplyFromTheNextEvent() {
+        pullDispatcher events = new pullDispatcher();
+        pullListener late = named("late");
+        events.add(new pullListener() {
+            @Override
+            public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+                events.add(late);
+            }
+
+            @Override
+            public void onThrees(int count, int pity5, int pity4) {
+            }
+        });
+        pullListener removed = named("removed");
+        events.add(removed);
+        events.add(new pullListener() {
+            @Override
+            public void onPull(int result, int pity5, int pity4, int fiftyFifty) {
+            }
+
+            @Override
+            public void onThrees(int count, int pity5, int pity4) {
+                events.remove(removed);
+            }
+        });
+
+        events.onPull(pullEngine.RESULT_4, 1, 0, pullEngine.FIFTY_NONE);
+        assertEquals(List.of("removed:1"), calls);
+        events.onThrees(2, 3, 2);
+        assertEquals(List.of("removed:1", "removed:3x2", "late:3x2"), calls);
+        events.onThrees(1, 4, 3);
+        assertEquals(List.of("removed:1", "removed:3x2", "late:3x2", "late:3x1"), calls);
+    }
+}
@@ -0,0 +1,113 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Packing of {@link pullHistory}: 2 bits per result, 32 per word, across word boundaries,
+ * growth and bulk 3★ runs.
+ */
+class pullHistoryTest {
+
+    @Test
+    void resultsSurvivePackingAcrossWords() {
+        SplittableRandom random = new SplittableRandom(17);
+        int[] expected = new int[10_000];
+        pullHistory history = new pullHistory();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.nextInt(4);
+            history.add(expected[i]);
+        }
+
+        assertEquals(expected.length, history.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], history.get(i), "result " + i);
+        }
+    }
+
+    @Test
+    void addThreesLeavesZeroedStorage() {
+        pullHistory history = new pullHistory();
+        history.add(pullEngine.RESULT_UP5);
+        history.addThrees(31);          // ends exactly at a word boundary
+        history.add(pullEngine.RESULT_4);
+        history.addThrees(1_000);       // grows by several words at once
+        history.add(pullEngine.RESULT_5);
+
+        assertEquals(1 + 31 + 1 + 1_000 + 1, history.size());
+        assertEquals(pullEngine.RESULT_UP5, history.get(0));
+        for (long i = 1; i <= 31; i++) {
+            assertEquals(pullEngine.RESULT_3, history.get(i));
+        }
+        assertEquals(pullEngine.RESULT_4, history.get(32));
+        for (long i = 33; i < 1_033; i++) {
+            assertEquals(pullEngine.RESULT_3, history.get(i));
+        }
+        assertEquals(pullEngine.RESULT_5, history.get(1_033));
+    }
+
+    @Test
+    void storageIsTwoBitsPerResult() {
+        pullHistory history = new pullHistory();
+        history.addThrees(1_000_000);
+        // 1M results in 31,250 words; growth may reserve up to twice that
+        assertEquals(1_000_000 / 32, history.usedWords());
+        long bytes = history.capacityBytes();
+        assertTrue(bytes >= 1_000_000 / 4 && bytes <= 2 * 1_000_000 / 4, "bytes " + bytes);
+    }
+
+    @Test
+    void copyAndClearAreIndependent() {
+        pullHistory history = new pullHistory();
+        new pullEngine(3L).pull(500, history);
+        pullHistory copy = history.copy();
+
+        history.clear();
+        history.add(pullEngine.RESULT_4);
+        assertEquals(1, history.size());
+        assertEquals(500, copy.size());
+
+        pullHistory again = new pullHistory();
+        new pullEngine(3L).pull(500, again);
+        for (long i = 0; i < 500; i++) {
+            assertEquals(again.get(i), copy.get(i));
+        }
+    }
+
+    @Test
+    void getOutsideTheHistoryThrows() {
+        pullHistory history = new pullHistory();
+        history.addThrees(40);
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(40));
+    }
+
+    @Test
+    void listViewDecodesLabels() {
+        pullHistory history = new pullHistory();
+        history.add(pullEngine.RESULT_3);
+        history.add(pullEngine.RESULT_4);
+        history.add(pullEngine.RESULT_5);
+        history.add(pullEngine.RESULT_UP5);
+        List<String> view = history.asList();
+        assertEquals(List.of("3★", "4★", "5★", "up!5★"), view);
+
+        // The view follows later appends
+        history.add(pullEngine.RESULT_4);
+        assertEquals(5, view.size());
+        assertEquals(List.of("5★", "up!5★"), history.view(2, 4));
+    }
+
+    @Test
+    void packedConstructorChecksSize() {
+        assertThrows(IllegalArgumentException.class, () -> new pullHistory(new long[1], 33));
+        assertThrows(IllegalArgumentException.class, () -> new pullHistory(new long[1], -1));
+        assertEquals(32, new pullHistory(new long[1], 32).size());
+    }
+}
@@ -0,0 +1,246 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class pullLogTest {
+
+    // Layout constants of the pull log file, see pullLog
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenKeepsResults() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        pullHistory expected = new pullHistory();
+        try (pullLog log = pullLog.open(path)) {
+            pullEngine engine = new pullEngine(5L);
+            engine.pull(10_000, log);
+            engine.pullTurbo(10_000, log);
+            for (long i = 0; i < log.size(); i++) {
+                expected.add(log.get(i));
+            }
+        }
+
+        try (pullLog log = pullLog.open(path)) {
+            assertSameResults(expected, log);
+        }
+    }
+
+    @Test
+    void copyIsIndependentOfTheLog() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        try (pullLog log = pullLog.open(path)) {
+            for (long pulls : new long[]{0, 1, 31, 32, 33, 12_345}) {
+                log.clear();
+                new pullEngine(pulls).pull(pulls, log);
+
+                pullHistory copy = log.copy();
+                assertSameResults(log, copy);
+                assertSameResults(copy, copy.copy());
+
+                long size = log.size();
+                log.clear();
+                log.add(pullEngine.RESULT_UP5);
+                assertEquals(size, copy.size(), "copy must not follow the log");
+            }
+        }
+    }
+
+    @Test
+    void strayBitsAfterCrashAreCleared() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        try (pullLog log = pullLog.open(path)) {
+            log.add(pullEngine.RESULT_4);
+            log.add(pullEngine.RESULT_UP5);
+        }
+
+        // A crash after writing the third result but before its count: the bits are on disk,
+        // the header still says two pulls
+        writeByte(path, HEADER_SIZE, (byte) (pullEngine.RESULT_4 | pullEngine.RESULT_UP5 << 2 | pullEngine.RESULT_5 << 4));
+
+        try (pullLog log = pullLog.open(path)) {
+            assertEquals(2, log.size());
+            log.addThrees(1);
+            assertEquals(pullEngine.RESULT_3, log.get(2), "stray result after the count must be dropped");
+            assertEquals(pullEngine.RESULT_UP5, log.get(1));
+        }
+    }
+
+    @Test
+    void countBeyondFileIsRejected() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        try (pullLog log = pullLog.open(path)) {
+            log.add(pullEngine.RESULT_4);
+        }
+        ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, Long.MAX_VALUE / 8);
+        write(path, COUNT_OFFSET, count);
+
+        assertThrows(IOException.class, () -> pullLog.open(path));
+    }
+
+    @Test
+    void badMagicIsRejected() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        try (pullLog log = pullLog.open(path)) {
+            log.add(pullEngine.RESULT_4);
+        }
+        writeByte(path, 0, (byte) 0);
+
+        assertThrows(IOException.class, () -> pullLog.open(path));
+    }
+
+    @Test
+    void resumeFromRestoresEnginePity() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        for (long seed = 0; seed < 50; seed++) {
+            pullEngine engine = new pullEngine(seed);
+            try (pullLog log = pullLog.open(path)) {
+                log.clear();
+                engine.pull(1000 + seed * 37, log);
+
+                pullEngine resumed = new pullEngine(seed);
+                resumed.resumeFrom(log);
+                assertEquals(engine.getCounter4(), resumed.getCounter4(), "counter_4, seed " + seed);
+                assertEquals(engine.getCounter5(), resumed.getCounter5(), "counter_5, seed " + seed);
+                assertEquals(engine.isGuaranteed(), resumed.isGuaranteed(), "guarantee, seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void resumeFromShortHistoryCountsEveryPull() {
+        pullHistory history = new pullHistory();
+        history.addThrees(5);
+        pullEngine engine = new pullEngine(1L);
+        engine.resumeFrom(history);
+        assertEquals(5, engine.getCounter4());
+        assertEquals(5, engine.getCounter5());
+        assertEquals(false, engine.isGuaranteed());
+    }
+
+    @Test
+    void checkpointPlusTailMatchesFullRebuild() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        for (long seed = 0; seed < 20; seed++) {
+            try (pullLog log = pullLog.open(path)) {
+                log.clear();
+                pullEngine engine = new pullEngine(seed);
+                pullStats stats = new pullStats();
+                pityHistogram pity = new pityHistogram();
+                pullDispatcher events = new pullDispatcher();
+                events.add(log);
+                events.add(stats);
+                events.add(pity);
+
+                engine.pull(500 + seed * 13, events);
+                pullLogCheckpoint.save(log, stats, pity);
+                // The tail starts in the middle of a pity run
+                engine.pull(300 + seed * 7, log);
+
+                pullStats restoredStats = new pullStats();
+                pityHistogram restoredPity = new pityHistogram();
+                long replayed = pullLogCheckpoint.restore(log, restoredStats, restoredPity);
+                assertEquals(300 + seed * 7, replayed, "only the tail is read, seed " + seed);
+                assertSameStats(log, restoredStats, restoredPity);
+            }
+        }
+    }
+
+    @Test
+    void clearedLogIgnoresOldCheckpoint() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        try (pullLog log = pullLog.open(path)) {
+            pullStats stats = new pullStats();
+            pityHistogram pity = new pityHistogram();
+            pullDispatcher events = new pullDispatcher();
+            events.add(log);
+            events.add(stats);
+            events.add(pity);
+            new pullEngine(3L).pull(2000, events);
+            pullLogCheckpoint.save(log, stats, pity);
+
+            log.clear();
+            new pullEngine(4L).pull(2500, log);
+
+            pullStats restoredStats = new pullStats();
+            pityHistogram restoredPity = new pityHistogram();
+            assertEquals(2500, pullLogCheckpoint.restore(log, restoredStats, restoredPity));
+            assertSameStats(log, restoredStats, restoredPity);
+        }
+    }
+
+    @Test
+    void simulatorCheckpointsOpenLogWithoutClosingIt() throws IOException {
+        Path path = dir.resolve("pulls.log");
+        pullSimulator simulator = new pullSimulator(5L);
+        simulator.openLog(path);
+        simulator.pullTurbo(3_000_000);
+        simulator.pull(10);
+
+        // Read the log as a restart after a crash would, while the simulator still has it open
+        try (pullLog log = pullLog.open(path)) {
+            pullStats stats = new pullStats();
+            pityHistogram pity = new pityHistogram();
+            assertEquals(10, pullLogCheckpoint.restore(log, stats, pity));
+            assertSameStats(log, stats, pity);
+        }
+        simulator.closeLog();
+    }
+
+    /**
+     * Compares restored statistics with ones computed from every result of the log.
+     */
+    private static void assertSameStats(pullLog log, pullStats stats, pityHistogram pity) {
+        pullStats expected = new pullStats();
+        for (long i = 0; i < log.size(); i++) {
+            expected.record(log.get(i));
+        }
+        pityHistogram expectedPity = pityHistogram.of(log);
+
+        assertEquals(expected.getTotal(), stats.getTotal());
+        assertEquals(expected.getCount4(), stats.getCount4());
+        assertEquals(expected.getCountUp5(), stats.getCountUp5());
+        assertEquals(expected.getFiftyFiftyWins(), stats.getFiftyFiftyWins());
+        assertEquals(expected.getCurrentDrought(), stats.getCurrentDrought());
+        assertEquals(expectedPity.getPulls(), pity.getPulls());
+        for (int k = 1; k <= pityHistogram.MAX_PITY_5; k++) {
+            for (int outcome = pullEngine.FIFTY_NONE; outcome <= pullEngine.FIFTY_GUARANTEED; outcome++) {
+                assertEquals(expectedPity.getCount5(k, outcome), pity.getCount5(k, outcome), "5★ at pity " + k);
+            }
+        }
+        for (int k = 1; k <= pityHistogram.MAX_PITY_4; k++) {
+            assertEquals(expectedPity.getCount4(k), pity.getCount4(k), "4★ at pity " + k);
+        }
+    }
+
+    private static void assertSameResults(pullStore expected, pullStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (long i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), "result " + i);
+        }
+    }
+
+    private static void writeByte(Path path, long position, byte value) throws IOException {
+        write(path, position, ByteBuffer.wrap(new byte[]{value}));
+    }
+
+    private static void write(Path path, long position, ByteBuffer data) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(data, position);
+        }
+    }
+}
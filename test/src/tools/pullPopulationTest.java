@@ -0,0 +1,58 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class pullPopulationTest {
+
+    // Not a multiple of any vector size and more than one block, so the scalar tail runs too
+    private static final int PLAYERS = 10_003;
+
+    @Test
+    void vectorPathMatchesScalarLoop() {
+        assertTrue(pullPopulation.VECTOR_AVAILABLE, "tests run with --add-modules jdk.incubator.vector");
+        assertTrue(pullPopulationVector.isSupported(), "no usable vector size on this machine");
+
+        pityTable table = pityTable.withFeaturedRate(0.5);
+        pullPopulation scalar = new pullPopulation(PLAYERS, 8L, table, false);
+        pullPopulation vector = new pullPopulation(PLAYERS, 8L, table, true);
+        scalar.step(200);
+        vector.step(200);
+
+        for (int result = pullEngine.RESULT_3; result <= pullEngine.RESULT_UP5; result++) {
+            assertEquals(scalar.getCount(result), vector.getCount(result), "result " + result);
+        }
+        for (int i = 0; i < PLAYERS; i++) {
+            assertEquals(scalar.getCounter4(i), vector.getCounter4(i), "counter_4 of " + i);
+            assertEquals(scalar.getCounter5(i), vector.getCounter5(i), "counter_5 of " + i);
+            assertEquals(scalar.isGuaranteed(i), vector.isGuaranteed(i), "guarantee of " + i);
+        }
+    }
+
+    @Test
+    void ratesMatchEngine() {
+        pullPopulation population = new pullPopulation(PLAYERS, 9L);
+        population.step(500);
+        batchResult batch = pullBatch.simulateMany(PLAYERS, 500, 9L);
+
+        long total = (long) PLAYERS * 500;
+        for (int result = pullEngine.RESULT_3; result <= pullEngine.RESULT_UP5; result++) {
+            long engineCount = count(batch, result);
+            double p = (double) engineCount / total;
+            double sigma = Math.sqrt(p * (1 - p) * 2 / total);
+            assertTrue(Math.abs(population.getCount(result) - engineCount) / (double) total <= 6 * sigma,
+                    "result " + result + ": " + population.getCount(result) + " vs " + engineCount);
+        }
+    }
+
+    private static long count(batchResult batch, int result) {
+        switch (result) {
+            case pullEngine.RESULT_3:   return batch.getCount3();
+            case pullEngine.RESULT_4:   return batch.getCount4();
+            case pullEngine.RESULT_5:   return batch.getCount5();
+            default:                    return batch.getCountUp5();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Running statistics of {@link pullStats} must equal a rescan of the history they were fed.
+ */
+class pullStatsTest {
+
+    @Test
+    void knownSequence() {
+        pullStats stats = new pullStats();
+        int[] results = {
+                pullEngine.RESULT_3, pullEngine.RESULT_3, pullEngine.RESULT_5,   // lost at pity 3
+                pullEngine.RESULT_4, pullEngine.RESULT_UP5,                      // guaranteed at pity 2
+                pullEngine.RESULT_UP5,                                           // won at pity 1
+                pullEngine.RESULT_3, pullEngine.RESULT_3
+        };
+        for (int result : results) {
+            stats.record(result);
+        }
+
+        assertEquals(results.length, stats.getTotal());
+        assertEquals(4, stats.getCount3());
+        assertEquals(1, stats.getCount4());
+        assertEquals(1, stats.getCount5());
+        assertEquals(2, stats.getCountUp5());
+        assertEquals(1, stats.getFiftyFiftyWins());
+        assertEquals(1, stats.getFiftyFiftyLosses());
+        assertEquals(0.5, stats.getFiftyFiftyWinRate(), 1e-12);
+        assertEquals(2.0, stats.getAveragePity5(), 1e-12);
+        assertEquals(3, stats.getLongestDrought());
+        assertEquals(2, stats.getCurrentDrought());
+    }
+
+    @Test
+    void runningStatsMatchRescanOfHistory() {
+        for (boolean turbo : new boolean[]{false, true}) {
+            pullEngine engine = new pullEngine(8L);
+            pullHistory history = new pullHistory();
+            pullStats running = new pullStats();
+            pullDispatcher events = new pullDispatcher();
+            events.add(history);
+            events.add(running);
+            if (turbo) {
+                engine.pullTurbo(200_000, events);
+            } else {
+                engine.pull(200_000, events);
+            }
+
+            pullStats rescan = new pullStats();
+            for (long i = 0; i < history.size(); i++) {
+                rescan.record(history.get(i));
+            }
+            assertSameStats(rescan, running);
+        }
+    }
+
+    @Test
+    void recordThreesEqualsSingleThrees() {
+        pullStats bulk = new pullStats();
+        pullStats single = new pullStats();
+        bulk.record(pullEngine.RESULT_5);
+        single.record(pullEngine.RESULT_5);
+        bulk.recordThrees(70);
+        for (int i = 0; i < 70; i++) {
+            single.record(pullEngine.RESULT_3);
+        }
+        bulk.record(pullEngine.RESULT_UP5);
+        single.record(pullEngine.RESULT_UP5);
+        assertSameStats(single, bulk);
+        assertEquals(71, bulk.getLongestDrought());
+    }
+
+    @Test
+    void copyResetAndStateRoundTrip() {
+        pullStats stats = new pullStats();
+        new pullEngine(2L).pull(10_000, stats);
+
+        pullStats copy = stats.copy();
+        ByteBuffer state = ByteBuffer.allocate(pullStats.BYTES);
+        stats.write(state);
+        state.flip();
+        pullStats read = new pullStats();
+        read.read(state);
+
+        stats.reset();
+        assertEquals(0, stats.getTotal());
+        assertEquals(0, stats.getLongestDrought());
+        assertEquals(10_000, copy.getTotal());
+        assertSameStats(copy, read);
+
+        // Both continue alike, including the 50-50 guarantee
+        new pullEngine(3L).pull(5_000, copy);
+        new pullEngine(3L).pull(5_000, read);
+        assertSameStats(copy, read);
+    }
+
+    private static void assertSameStats(pullStats expected, pullStats actual) {
+        assertEquals(expected.getCount3(), actual.getCount3());
+        assertEquals(expected.getCount4(), actual.getCount4());
+        assertEquals(expected.getCount5(), actual.getCount5());
+        assertEquals(expected.getCountUp5(), actual.getCountUp5());
+        assertEquals(expected.getFiftyFiftyWins(), actual.getFiftyFiftyWins());
+        assertEquals(expected.getFiftyFiftyLosses(), actual.getFiftyFiftyLosses());
+        assertEquals(expected.getAveragePity5(), actual.getAveragePity5(), 0.0);
+        assertEquals(expected.getLongestDrought(), actual.getLongestDrought());
+        assertEquals(expected.getCurrentDrought(), actual.getCurrentDrought());
+    }
+}
@@ -0,0 +1,64 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Turbo (skip-ahead) pulls must have the same distribution as pulling one at a time.
+ */
+class pullTurboTest {
+
+    private static final long TRIALS = 20_000;
+    private static final int PULLS = 160;
+
+    // Pulls within a trial are correlated through pity, so allow a generous margin
+    private static final double SIGMAS = 6.0;
+
+    @Test
+    void rarityCountsAgree() {
+        batchResult plain = pullBatch.simulateMany(TRIALS, PULLS, 1L);
+        batchResult turbo = pullBatch.simulateManyTurbo(TRIALS, PULLS, 2L);
+
+        assertEquals(TRIALS * PULLS, plain.getTotalPulls());
+        assertEquals(TRIALS * PULLS, turbo.getTotalPulls());
+        assertSameRate("3★", plain.getCount3(), turbo.getCount3());
+        assertSameRate("4★", plain.getCount4(), turbo.getCount4());
+        assertSameRate("5★", plain.getCount5(), turbo.getCount5());
+        assertSameRate("up!5★", plain.getCountUp5(), turbo.getCountUp5());
+    }
+
+    @Test
+    void pityHistogramsAgree() {
+        pityHistogram plain = pullBatch.simulateMany(TRIALS, PULLS, 3L).getPityHistogram();
+        pityHistogram turbo = pullBatch.simulateManyTurbo(TRIALS, PULLS, 4L).getPityHistogram();
+
+        assertEquals(plain.getPulls(), turbo.getPulls());
+        assertSameRate("average 5★ pity", plain.getAveragePity5(), turbo.getAveragePity5(), 0.02);
+        assertSameRate("average 4★ pity", plain.getAveragePity4(), turbo.getAveragePity4(), 0.01);
+        for (int pity = 1; pity <= pityHistogram.MAX_PITY_4; pity++) {
+            assertSameRate("4★ at pity " + pity, plain.getCount4(pity), turbo.getCount4(pity));
+        }
+    }
+
+    @Test
+    void turboIsReproducible() {
+        batchResult a = pullBatch.simulateManyTurbo(1000, PULLS, 7L);
+        batchResult b = pullBatch.simulateManyTurbo(1000, PULLS, 7L);
+        assertEquals(a.getCount4(), b.getCount4());
+        assertEquals(a.getCountUp5(), b.getCountUp5());
+    }
+
+    private static void assertSameRate(String what, long a, long b) {
+        double n = TRIALS * PULLS;
+        double p = (a + b) / (2 * n);
+        double sigma = Math.sqrt(p * (1 - p) * 2 / n);
+        double diff = Math.abs(a - b) / n;
+        assertTrue(diff <= SIGMAS * sigma + 1e-12, what + ": " + a + " vs " + b);
+    }
+
+    private static void assertSameRate(String what, double a, double b, double relative) {
+        assertTrue(Math.abs(a - b) <= relative * Math.max(a, b), what + ": " + a + " vs " + b);
+    }
+}
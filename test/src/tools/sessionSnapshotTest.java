@@ -0,0 +1,219 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class sessionSnapshotTest {
+
+    // Offsets in the snapshot layout, see sessionSnapshot
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNTER_4_OFFSET = 8;
+    private static final int COUNTER_5_OFFSET = 12;
+    private static final int GUARANTEED_OFFSET = 16;
+    private static final int LAST_PULL_START_OFFSET = 26;
+    private static final int PITY_OFFSET = LAST_PULL_START_OFFSET + 8 + pullStats.BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripContinuesTheSameSequence() throws IOException {
+        pullEngine engine = new pullEngine(new seededRandom(99L));
+        pullHistory history = new pullHistory();
+        pullStats stats = new pullStats();
+        pityHistogram pity = new pityHistogram();
+        pullDispatcher events = new pullDispatcher();
+        events.add(history);
+        events.add(stats);
+        events.add(pity);
+        engine.pull(12_345, events);
+
+        Path path = dir.resolve("session.wws");
+        sessionSnapshot.save(path, engine, history, stats, pity, 12_000);
+        sessionSnapshot snapshot = sessionSnapshot.load(path);
+
+        assertTrue(snapshot.hasRngState());
+        assertEquals(12_000, snapshot.getLastPullStart());
+        assertEquals(history.size(), snapshot.getHistory().size());
+        for (long i = 0; i < history.size(); i++) {
+            assertEquals(history.get(i), snapshot.getHistory().get(i), "result " + i);
+        }
+        assertEquals(stats.getTotal(), snapshot.getStats().getTotal());
+        assertEquals(stats.getCount4(), snapshot.getStats().getCount4());
+        assertEquals(stats.getCountUp5(), snapshot.getStats().getCountUp5());
+        assertEquals(stats.getFiftyFiftyWins(), snapshot.getStats().getFiftyFiftyWins());
+        assertEquals(stats.getCurrentDrought(), snapshot.getStats().getCurrentDrought());
+        assertSameHistogram(pity, snapshot.getPityHistogram());
+
+        pullEngine restored = snapshot.createEngine(new SplittableRandom(0));
+        assertEquals(engine.getCounter4(), restored.getCounter4());
+        assertEquals(engine.getCounter5(), restored.getCounter5());
+        assertEquals(engine.isGuaranteed(), restored.isGuaranteed());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(engine.pullOne(), restored.pullOne(), "pull " + i + " after restore");
+        }
+    }
+
+    @Test
+    void unseededEngineUsesFallbackRandom() throws IOException {
+        pullEngine engine = new pullEngine(new SplittableRandom(3));
+        engine.pull(100, new pullHistory());
+
+        Path path = dir.resolve("session.wws");
+        sessionSnapshot.save(path, engine, new pullHistory(), new pullStats(), new pityHistogram(), 0);
+        sessionSnapshot snapshot = sessionSnapshot.load(path);
+
+        assertFalse(snapshot.hasRngState());
+        SplittableRandom fallback = new SplittableRandom(8);
+        assertEquals(fallback, snapshot.createEngine(fallback).getRandom());
+        assertEquals(0, snapshot.getHistory().size());
+    }
+
+    @Test
+    void unsupportedVersionIsRejected() throws IOException {
+        Path path = savedSnapshot();
+        ByteBuffer version = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 3);
+        write(path, VERSION_OFFSET, version);
+
+        IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+        assertTrue(e.getMessage().contains("version 3"), e.getMessage());
+    }
+
+    @Test
+    void versionOneSnapshotRebuildsPityHistogram() throws IOException {
+        Path path = savedSnapshot();
+        // A version 1 file is the same without the pity histogram
+        byte[] data = Files.readAllBytes(path);
+        byte[] old = new byte[data.length - pityHistogram.BYTES];
+        System.arraycopy(data, 0, old, 0, PITY_OFFSET);
+        System.arraycopy(data, PITY_OFFSET + pityHistogram.BYTES, old, PITY_OFFSET, old.length - PITY_OFFSET);
+        ByteBuffer.wrap(old).order(ByteOrder.LITTLE_ENDIAN).putInt(VERSION_OFFSET, 1);
+        Files.write(path, old);
+
+        sessionSnapshot snapshot = sessionSnapshot.load(path);
+        assertSameHistogram(pityHistogram.of(snapshot.getHistory()), snapshot.getPityHistogram());
+    }
+
+    @Test
+    void badMagicIsRejected() throws IOException {
+        Path path = savedSnapshot();
+        write(path, 0, ByteBuffer.wrap(new byte[]{0}));
+
+        assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path path = savedSnapshot();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+    }
+
+    @Test
+    void outOfRangeCountersAreRejected() throws IOException {
+        Path path = savedSnapshot();
+        ByteBuffer counter5 = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0, pityTable.COUNTER_5_SIZE);
+        write(path, COUNTER_5_OFFSET, counter5);
+
+        IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+        assertTrue(e.getMessage().contains("counter_5"), e.getMessage());
+
+        Path other = savedSnapshot();
+        ByteBuffer counter4 = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, -1);
+        write(other, COUNTER_4_OFFSET, counter4);
+
+        e = assertThrows(IOException.class, () -> sessionSnapshot.load(other));
+        assertTrue(e.getMessage().contains("counter_4"), e.getMessage());
+    }
+
+    @Test
+    void badGuaranteedFlagIsRejected() throws IOException {
+        Path path = savedSnapshot();
+        write(path, GUARANTEED_OFFSET, ByteBuffer.wrap(new byte[]{7}));
+
+        IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+        assertTrue(e.getMessage().contains("guaranteed"), e.getMessage());
+    }
+
+    @Test
+    void lastPullStartOutsideHistoryIsRejected() throws IOException {
+        for (long start : new long[]{-1, 501}) {
+            Path path = savedSnapshot();
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, start);
+            write(path, LAST_PULL_START_OFFSET, value);
+
+            IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+            assertTrue(e.getMessage().contains("last batch start " + start), e.getMessage());
+        }
+    }
+
+    @Test
+    void bitsPastHistorySizeAreRejected() throws IOException {
+        // 500 pulls use 20 of the 32 slots in the last word, which is the last 8 bytes of the file
+        Path path = savedSnapshot();
+        long lastWord = Files.size(path) - Long.BYTES;
+        write(path, lastWord + Long.BYTES - 1, ByteBuffer.wrap(new byte[]{(byte) 0x40}));
+
+        IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+        assertTrue(e.getMessage().startsWith("Corrupt session snapshot"), e.getMessage());
+    }
+
+    @Test
+    void pityHistogramOfAnotherHistoryIsRejected() throws IOException {
+        Path path = savedSnapshot();
+        ByteBuffer pulls = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, 499);
+        write(path, PITY_OFFSET, pulls);
+
+        IOException e = assertThrows(IOException.class, () -> sessionSnapshot.load(path));
+        assertTrue(e.getMessage().contains("pity histogram"), e.getMessage());
+    }
+
+    @Test
+    void saveLeavesNoTempFile() throws IOException {
+        Path path = savedSnapshot();
+        assertTrue(Files.exists(path));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+    }
+
+    private Path savedSnapshot() throws IOException {
+        pullEngine engine = new pullEngine(new seededRandom(1L));
+        pullHistory history = new pullHistory();
+        engine.pull(500, history);
+        Path path = dir.resolve("session.wws");
+        sessionSnapshot.save(path, engine, history, new pullStats(), pityHistogram.of(history), 0);
+        return path;
+    }
+
+    private static void assertSameHistogram(pityHistogram expected, pityHistogram actual) {
+        assertEquals(expected.getPulls(), actual.getPulls());
+        ByteBuffer expectedState = ByteBuffer.allocate(pityHistogram.BYTES);
+        ByteBuffer actualState = ByteBuffer.allocate(pityHistogram.BYTES);
+        expected.write(expectedState);
+        actual.write(actualState);
+        assertEquals(expectedState.flip(), actualState.flip());
+    }
+
+    private static void write(Path path, long position, ByteBuffer data) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(data, position);
+        }
+    }
+}
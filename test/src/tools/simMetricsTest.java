@@ -0,0 +1,87 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recording into {@link simMetrics#GLOBAL}. Other tests record to the same instance,
+ * so every check is made on the change of a value.
+ */
+class simMetricsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedPullsAndDrawsAreSummed() {
+        simMetrics metrics = simMetrics.GLOBAL;
+        long before = metrics.getPullsExecuted();
+        metrics.recordPulls(1_000, 1_500);
+        metrics.recordPulls(3_000, 4_500);
+        assertEquals(4_000, metrics.getPullsExecuted() - before);
+    }
+
+    @Test
+    void latencyLandsInItsPowerOfTwoBucket() {
+        simMetrics metrics = simMetrics.GLOBAL;
+        long[] before = metrics.getBatchLatencyHistogram();
+        long batches = metrics.getBatches();
+        metrics.recordLatency(1_000);   // 2^9 <= 1000 < 2^10
+        metrics.recordLatency(1_000_000_000L);
+
+        long[] after = metrics.getBatchLatencyHistogram();
+        assertEquals(1, after[10] - before[10]);
+        assertEquals(1, after[30] - before[30]);
+        assertEquals(2, metrics.getBatches() - batches);
+        assertTrue(metrics.getBatchLatencyMaxMillis() >= 1_000.0);
+    }
+
+    @Test
+    void sessionsAreCountedUntilClosed() {
+        simMetrics metrics = simMetrics.GLOBAL;
+        long before = metrics.getActiveSessions();
+        metrics.sessionOpened();
+        metrics.sessionOpened();
+        assertEquals(2, metrics.getActiveSessions() - before);
+        metrics.sessionsClosed(2);
+        assertEquals(before, metrics.getActiveSessions());
+    }
+
+    @Test
+    void onlyTrackedHistoriesAreCounted() {
+        simMetrics metrics = simMetrics.GLOBAL;
+        long before = metrics.getHistoryBytes();
+
+        pullHistory history = new pullHistory();
+        history.addThrees(100_000);
+        history.copy();
+        assertEquals(before, metrics.getHistoryBytes());
+
+        metrics.trackHistory(history);
+        assertEquals(before + history.capacityBytes(), metrics.getHistoryBytes());
+        history.addThrees(1_000_000);
+        assertEquals(before + history.capacityBytes(), metrics.getHistoryBytes());
+
+        metrics.untrackHistory(history);
+        assertEquals(before, metrics.getHistoryBytes());
+    }
+
+    @Test
+    void trackedLogCountsItsMappedSize() throws IOException {
+        simMetrics metrics = simMetrics.GLOBAL;
+        long before = metrics.getHistoryBytes();
+        try (pullLog log = pullLog.open(dir.resolve("history.wwl"))) {
+            metrics.trackHistory(log);
+            assertTrue(log.capacityBytes() > 0);
+            assertEquals(before + log.capacityBytes(), metrics.getHistoryBytes());
+            metrics.untrackHistory(log);
+        }
+        assertEquals(before, metrics.getHistoryBytes());
+    }
+}
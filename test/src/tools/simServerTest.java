@@ -0,0 +1,119 @@
+package tools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Status codes, request limits and session lifetime of {@link simServer}, over real HTTP.
+ */
+class simServerTest {
+
+    private static final long IDLE_MILLIS = 500;
+
+    private simServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new simServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), IDLE_MILLIS);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpRequest request = HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int status(String method, String path) throws IOException, InterruptedException {
+        return send(method, path).statusCode();
+    }
+
+    @Test
+    void seededPullsAreReproducible() throws Exception {
+        HttpResponse<String> first = send("GET", "/pull?n=50&seed=9");
+        assertEquals(200, first.statusCode());
+        assertTrue(first.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        assertEquals(first.body(), send("GET", "/pull?n=50&seed=9").body());
+    }
+
+    @Test
+    void invalidParametersAreBadRequests() throws Exception {
+        assertEquals(400, status("GET", "/pull?n=0"));
+        assertEquals(400, status("GET", "/pull?n=" + (simServer.MAX_PULLS_PER_REQUEST + 1)));
+        assertEquals(400, status("GET", "/pull?seed=abc"));
+        assertEquals(400, status("GET", "/simulate?trials=" + simServer.MAX_SIMULATED_PULLS + "&pulls=2"));
+        assertEquals(400, status("GET", "/distribution?counter5=" + pityTable.COUNTER_5_SIZE));
+        assertEquals(400, status("GET", "/distribution?pulls=" + (simServer.MAX_DISTRIBUTION_PULLS + 1)));
+        assertEquals(400, status("DELETE", "/session"));
+    }
+
+    @Test
+    void wrongMethodIsNotAllowed() throws Exception {
+        HttpResponse<String> response = send("POST", "/pull");
+        assertEquals(405, response.statusCode());
+        assertEquals("GET", response.headers().firstValue("Allow").orElse(""));
+        assertEquals(405, status("GET", "/session?session=a"));
+    }
+
+    @Test
+    void namedSessionLifecycle() throws Exception {
+        assertEquals(200, status("GET", "/pull?session=a&seed=1"));
+        assertEquals(1, server.getSessionCount());
+        assertEquals(200, status("GET", "/pull?session=a&n=10"));
+        // The seed only applies when a session is created
+        assertEquals(409, status("GET", "/pull?session=a&seed=2"));
+
+        assertEquals(200, status("DELETE", "/session?session=a"));
+        assertEquals(0, server.getSessionCount());
+        assertEquals(404, status("DELETE", "/session?session=a"));
+    }
+
+    @Test
+    void namedSessionContinuesItsSequence() throws Exception {
+        String whole = send("GET", "/pull?n=20&seed=4").body();
+        send("GET", "/pull?session=s&n=10&seed=4");
+        String second = send("GET", "/pull?session=s&n=10").body();
+        // The last 10 results of the one-off run are the second batch of the session
+        String tail = whole.substring(whole.indexOf('[') + 1, whole.indexOf(']'));
+        String[] labels = tail.split(",");
+        String expected = String.join(",", Arrays.copyOfRange(labels, 10, 20));
+        assertTrue(second.contains("[" + expected + "]"), second);
+    }
+
+    @Test
+    void idleSessionsAreEnded() throws Exception {
+        assertEquals(200, status("GET", "/pull?session=idle"));
+        Thread.sleep(IDLE_MILLIS * 2);
+        server.evictIdleSessions();
+        assertEquals(0, server.getSessionCount());
+        assertEquals(404, status("DELETE", "/session?session=idle"));
+    }
+
+    @Test
+    void distributionIsServedFromCacheUnchanged() throws Exception {
+        HttpResponse<String> first = send("GET", "/distribution?counter5=40&guaranteed=true&pulls=80");
+        assertEquals(200, first.statusCode());
+        assertTrue(first.body().contains("\"pullsToFeatured\":["), first.body());
+        assertEquals(first.body(), send("GET", "/distribution?counter5=40&guaranteed=true&pulls=80").body());
+    }
+}
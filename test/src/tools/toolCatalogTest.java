@@ -0,0 +1,95 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tool discovery through {@code META-INF/services/tools.toolProvider} and console launch by name.
+ * Nothing here may create a tool unless it is launched.
+ */
+class toolCatalogTest {
+
+    /**
+     * A provider whose tool must never be created; launch() returns a fixed code.
+     */
+    private static final class fakeProvider implements toolProvider {
+        private final String name;
+        private final int order;
+        final List<String[]> launches = new ArrayList<>();
+
+        fakeProvider(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String getToolName() {
+            return name;
+        }
+
+        @Override
+        public String getTitle() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public tool create() {
+            throw new AssertionError("tool " + name + " must not be created");
+        }
+
+        @Override
+        public int launch(String[] args) {
+            launches.add(args);
+            return 7;
+        }
+    }
+
+    @Test
+    void discoverFindsInstalledToolsInOrder() {
+        List<String> names = new ArrayList<>();
+        for (toolDescriptor descriptor : toolCatalog.discover().getTools()) {
+            names.add(descriptor.getToolName());
+            assertTrue(!descriptor.isBuilt() && !descriptor.isFailed(), descriptor.getToolName());
+        }
+        assertEquals(List.of("pullSimulator", "pullAnalysis"), names);
+    }
+
+    @Test
+    void findReturnsNullForUnknownTool() {
+        toolCatalog catalog = toolCatalog.discover();
+        assertEquals("pullAnalysis", catalog.find("pullAnalysis").getToolName());
+        assertNull(catalog.find("noSuchTool"));
+    }
+
+    @Test
+    void launchRunsTheNamedProviderOnly() {
+        fakeProvider first = new fakeProvider("first", 1);
+        fakeProvider second = new fakeProvider("second", 2);
+        toolCatalog catalog = new toolCatalog().register(first).register(second);
+
+        String[] args = {"--trials", "5"};
+        assertEquals(7, catalog.launch("second", args));
+        assertEquals(0, first.launches.size());
+        assertEquals(1, second.launches.size());
+        assertSame(args, second.launches.get(0));
+    }
+
+    @Test
+    void launchOfUnknownToolReturnsUsageCode() {
+        fakeProvider only = new fakeProvider("only", 1);
+        assertEquals(2, new toolCatalog().register(only).launch("other", new String[0]));
+        assertEquals(0, only.launches.size());
+    }
+}
@@ -0,0 +1,98 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lazy creation of a tool through its {@link toolDescriptor}, and remembering a failed attempt.
+ * Only {@link toolDescriptor#create()} is used, so no Swing component is built.
+ */
+class toolDescriptorTest {
+
+    private static final class stubTool implements tool {
+        @Override
+        public String getToolName() {
+            return "stub";
+        }
+
+        @Override
+        public JComponent createPanel() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int launch(String[] args) {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates a stubTool, failing the first {@code failures} times.
+     */
+    private static final class countingProvider implements toolProvider {
+        int failures;
+        int creates;
+
+        @Override
+        public String getToolName() {
+            return "stub";
+        }
+
+        @Override
+        public String getTitle() {
+            return "Stub";
+        }
+
+        @Override
+        public tool create() {
+            creates++;
+            if (creates <= failures) {
+                throw new IllegalStateException("cannot load");
+            }
+            return new stubTool();
+        }
+    }
+
+    @Test
+    void toolIsCreatedOnceOnFirstUse() {
+        countingProvider provider = new countingProvider();
+        toolDescriptor descriptor = new toolDescriptor(provider);
+        assertEquals(0, provider.creates);
+        assertNull(descriptor.getInstance());
+
+        tool first = descriptor.create();
+        assertSame(first, descriptor.create());
+        assertSame(first, descriptor.getInstance());
+        assertEquals(1, provider.creates);
+        assertFalse(descriptor.isBuilt());
+    }
+
+    @Test
+    void failureIsRememberedUntilCleared() {
+        countingProvider provider = new countingProvider();
+        provider.failures = 1;
+        toolDescriptor descriptor = new toolDescriptor(provider);
+
+        assertThrows(IllegalStateException.class, descriptor::create);
+        assertTrue(descriptor.isFailed());
+        assertEquals("cannot load", descriptor.getFailure().getMessage());
+
+        // Not retried: the provider is not called again
+        IllegalStateException again = assertThrows(IllegalStateException.class, descriptor::create);
+        assertSame(descriptor.getFailure(), again.getCause());
+        assertEquals(1, provider.creates);
+
+        descriptor.clearFailure();
+        assertFalse(descriptor.isFailed());
+        descriptor.create();
+        assertEquals(2, provider.creates);
+    }
+}